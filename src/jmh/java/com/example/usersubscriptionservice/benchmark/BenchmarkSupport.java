@@ -0,0 +1,73 @@
+package com.example.usersubscriptionservice.benchmark;
+
+import com.example.usersubscriptionservice.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Builds the collaborators the benchmarks need the same way the application context does,
+ * without starting Spring.
+ */
+public final class BenchmarkSupport {
+
+    public static final String JWT_SECRET = "mySecretKey123456789012345678901234567890";
+
+    private BenchmarkSupport() {
+    }
+
+    // Same configuration as Boot's auto-configured ObjectMapper plus JacksonConfig
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new BlackbirdModule())
+                .build();
+    }
+
+    public static JwtUtil jwtUtil(long verifiedCacheMaximumSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        inject(jwtUtil, "secret", JWT_SECRET);
+        inject(jwtUtil, "verifiedCacheMaximumSize", verifiedCacheMaximumSize);
+        inject(jwtUtil, "verifiedCacheMaxTtl", Duration.ofMinutes(15));
+        inject(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    public static String token(String username, String role) {
+        return Jwts.builder()
+                .subject(username)
+                .claim("role", role)
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes()))
+                .compact();
+    }
+
+    // Stands in for @Autowired/@Value field injection
+    public static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + fieldName, e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.usersubscriptionservice.client;
+
+import com.example.usersubscriptionservice.benchmark.BenchmarkSupport;
+import com.example.usersubscriptionservice.dto.SubscriptionEnvelope;
+import com.example.usersubscriptionservice.dto.SubscriptionListEnvelope;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of subscription-service responses as Feign does it: into the typed envelopes, and into a
+ * generic map followed by the field-by-field conversion that used to live in getSubscriptionDetails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DownstreamDecodingBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private ObjectMapper objectMapper;
+    private byte[] subscriptionJson;
+    private byte[] subscriptionListJson;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkSupport.objectMapper();
+        subscriptionJson = ("{\"success\":true,\"subscription\":" + subscription(1) + "}").getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder list = new StringBuilder("{\"success\":true,\"subscriptions\":[");
+        for (int i = 1; i <= 100; i++) {
+            list.append(i > 1 ? "," : "").append(subscription(i));
+        }
+        subscriptionListJson = list.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public SubscriptionEnvelope typedSubscription() throws IOException {
+        return objectMapper.readValue(subscriptionJson, SubscriptionEnvelope.class);
+    }
+
+    @Benchmark
+    public BigDecimal mapSubscription() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(subscriptionJson, MAP_TYPE);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> subscription = (Map<String, Object>) response.get("subscription");
+        return new BigDecimal(subscription.get("price").toString());
+    }
+
+    @Benchmark
+    public SubscriptionListEnvelope typedSubscriptionBatch() throws IOException {
+        return objectMapper.readValue(subscriptionListJson, SubscriptionListEnvelope.class);
+    }
+
+    private static String subscription(int id) {
+        return "{\"id\":" + id + ",\"name\":\"Netflix Premium " + id + "\",\"description\":\"4K streaming on four screens\","
+                + "\"price\":17.99,\"currency\":\"AZN\",\"category\":\"STREAMING\",\"billingPeriod\":\"MONTHLY\","
+                + "\"websiteUrl\":\"https://www.netflix.com\",\"logoUrl\":\"https://cdn.example.com/logos/netflix.png\","
+                + "\"isActive\":true}";
+    }
+}
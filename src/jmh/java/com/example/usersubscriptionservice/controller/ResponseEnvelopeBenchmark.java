@@ -0,0 +1,70 @@
+package com.example.usersubscriptionservice.controller;
+
+import com.example.usersubscriptionservice.benchmark.BenchmarkSupport;
+import com.example.usersubscriptionservice.dto.UserSubscriptionResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the controller's {@code success}/{@code subscriptions} envelope, the body of the
+ * listing endpoints, for typical and large page sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseEnvelopeBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private List<UserSubscriptionResponse> subscriptions;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkSupport.objectMapper();
+        subscriptions = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++) {
+            UserSubscriptionResponse response = new UserSubscriptionResponse();
+            response.setId(i);
+            response.setUsername("john");
+            response.setSubscriptionId(i % 30 + 1);
+            response.setSubscriptionName("Netflix Premium");
+            response.setSubscriptionCategory("STREAMING");
+            response.setStartDate(LocalDate.of(2024, 1, 15));
+            response.setNextBillingDate(LocalDate.of(2024, 2, 15));
+            response.setMonthlyPrice(new BigDecimal("17.99"));
+            response.setCurrency("AZN");
+            response.setBillingPeriod("MONTHLY");
+            response.setIsActive(true);
+            response.setLogoUrl("https://cdn.example.com/logos/netflix.png");
+            response.setWebsiteUrl("https://www.netflix.com");
+            subscriptions.add(response);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeListEnvelope() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("subscriptions", subscriptions);
+        response.put("count", subscriptions.size());
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
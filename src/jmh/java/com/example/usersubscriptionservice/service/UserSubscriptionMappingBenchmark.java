@@ -0,0 +1,85 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.benchmark.BenchmarkSupport;
+import com.example.usersubscriptionservice.dto.MonthlyCostSummary;
+import com.example.usersubscriptionservice.dto.SubscriptionResponse;
+import com.example.usersubscriptionservice.dto.SubscriptionStatistics;
+import com.example.usersubscriptionservice.dto.UserSubscriptionResponse;
+import com.example.usersubscriptionservice.entity.UserCostAggregate;
+import com.example.usersubscriptionservice.entity.UserSubscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-row and per-request computations in the service layer, with the repositories stubbed out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserSubscriptionMappingBenchmark {
+
+    private UserSubscriptionService userSubscriptionService;
+    private UserSubscription userSubscription;
+    private SubscriptionResponse subscription;
+    private SubscriptionStatistics statistics;
+
+    @Setup
+    public void setUp() {
+        userSubscription = new UserSubscription("john", 1L, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 2, 15),
+                new BigDecimal("17.99"), "AZN", "MONTHLY");
+        userSubscription.setId(42L);
+        userSubscription.setNotes("Family plan");
+
+        subscription = new SubscriptionResponse();
+        subscription.setId(1L);
+        subscription.setName("Netflix Premium");
+        subscription.setCategory("STREAMING");
+        subscription.setPrice(new BigDecimal("17.99"));
+        subscription.setCurrency("AZN");
+        subscription.setLogoUrl("https://cdn.example.com/logos/netflix.png");
+        subscription.setWebsiteUrl("https://www.netflix.com");
+
+        UserCostAggregate aggregate = new UserCostAggregate();
+        aggregate.setUsername("john");
+        aggregate.setTotalMonthlyCost(new BigDecimal("87.45"));
+        aggregate.setActiveSubscriptionCount(7);
+        aggregate.setCostByCurrency(Map.of("AZN", new BigDecimal("62.47"), "USD", new BigDecimal("24.98")));
+
+        userSubscriptionService = new UserSubscriptionService();
+        BenchmarkSupport.inject(userSubscriptionService, "userCostAggregateService", new UserCostAggregateService() {
+            @Override
+            public UserCostAggregate getOrRebuild(String username) {
+                return aggregate;
+            }
+        });
+
+        statistics = new SubscriptionStatistics(125_000, 38_000, new BigDecimal("1843920.55"), 41_250,
+                Instant.now().minusSeconds(30));
+    }
+
+    @Benchmark
+    public UserSubscriptionResponse mapToResponse() {
+        return userSubscriptionService.mapToResponse(userSubscription, subscription);
+    }
+
+    @Benchmark
+    public MonthlyCostSummary monthlyCostSummary() {
+        return userSubscriptionService.getMonthlyCostSummary("john");
+    }
+
+    @Benchmark
+    public Map<String, Object> subscriptionStatistics() {
+        return statistics.toMap(Instant.now());
+    }
+}
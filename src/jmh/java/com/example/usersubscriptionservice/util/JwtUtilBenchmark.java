@@ -0,0 +1,53 @@
+package com.example.usersubscriptionservice.util;
+
+import com.example.usersubscriptionservice.benchmark.BenchmarkSupport;
+import com.example.usersubscriptionservice.security.JwtPrincipal;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Token handling per request: the cached verification path against a full signature check and claim parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.jwtUtil(10_000);
+        token = BenchmarkSupport.token("john", "USER");
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    // The work verify() does on a cache miss
+    @Benchmark
+    public Claims verifySignatureAndParse() {
+        return jwtUtil.extractClaim(token, Function.identity());
+    }
+
+    // What the filter used to do: four parses of the same token
+    @Benchmark
+    public boolean extractAndValidateSeparately() {
+        String username = jwtUtil.extractUsername(token);
+        String role = jwtUtil.extractRole(token);
+        return role != null && jwtUtil.validateToken(token, username);
+    }
+}
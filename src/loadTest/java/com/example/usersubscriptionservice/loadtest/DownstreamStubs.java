@@ -0,0 +1,192 @@
+package com.example.usersubscriptionservice.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-ins for user-service, subscription-service and email-service, served by the JDK
+ * HTTP server on ephemeral ports.
+ * <p>
+ * Each stub adds {@code loadtest.<service>.latency} (plus up to 50% jitter) to every response and
+ * answers a {@code loadtest.<service>.error-rate} fraction of requests with 503.
+ */
+class DownstreamStubs implements AutoCloseable {
+
+    static final int CATALOG_SIZE = 50;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final String userServiceUrl;
+    private final String subscriptionServiceUrl;
+    private final String emailServiceUrl;
+
+    private DownstreamStubs() throws IOException {
+        userServiceUrl = start("user-service", this::handleUser);
+        subscriptionServiceUrl = start("subscription-service", this::handleSubscription);
+        emailServiceUrl = start("email-service", this::handleEmail);
+    }
+
+    static DownstreamStubs start() {
+        try {
+            return new DownstreamStubs();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start downstream stubs", e);
+        }
+    }
+
+    String getUserServiceUrl() {
+        return userServiceUrl;
+    }
+
+    String getSubscriptionServiceUrl() {
+        return subscriptionServiceUrl;
+    }
+
+    String getEmailServiceUrl() {
+        return emailServiceUrl;
+    }
+
+    @Override
+    public void close() {
+        servers.forEach(server -> server.stop(0));
+        executor.shutdownNow();
+    }
+
+    private String start(String service, Handler handler) throws IOException {
+        Duration latency = DurationStyle.detectAndParse(System.getProperty("loadtest." + service + ".latency", "20ms"));
+        double errorRate = Double.parseDouble(System.getProperty("loadtest." + service + ".error-rate", "0"));
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                drain(exchange.getRequestBody());
+                simulateLatency(latency);
+                if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    respond(exchange, 503, "{\"success\":false,\"message\":\"Injected failure\"}");
+                    return;
+                }
+                handler.handle(exchange);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // GET /api/users/{username}
+    private void handleUser(HttpExchange exchange) throws IOException {
+        String username = lastPathSegment(exchange);
+        respond(exchange, 200, "{\"success\":true,\"user\":{\"id\":" + Math.abs(username.hashCode())
+                + ",\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\""
+                + ",\"firstName\":\"Load\",\"lastName\":\"" + username + "\"}}");
+    }
+
+    // GET /api/subscriptions/available/{id} and /api/subscriptions/available/batch?ids=...
+    private void handleSubscription(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/batch")) {
+            StringBuilder body = new StringBuilder("{\"success\":true,\"subscriptions\":[");
+            boolean first = true;
+            for (long id : idsParameter(exchange.getRequestURI().getRawQuery())) {
+                if (id >= 1 && id <= CATALOG_SIZE) {
+                    body.append(first ? "" : ",").append(subscription(id));
+                    first = false;
+                }
+            }
+            respond(exchange, 200, body.append("]}").toString());
+            return;
+        }
+
+        long id = Long.parseLong(lastPathSegment(exchange));
+        if (id < 1 || id > CATALOG_SIZE) {
+            respond(exchange, 404, "{\"success\":false,\"message\":\"Subscription not found\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"success\":true,\"subscription\":" + subscription(id) + "}");
+    }
+
+    // POST /api/email/*
+    private void handleEmail(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "");
+    }
+
+    private static String subscription(long id) {
+        return "{\"id\":" + id + ",\"name\":\"Subscription " + id + "\",\"description\":\"Load test plan " + id + "\""
+                + ",\"price\":" + (4 + id % 20) + ".99,\"currency\":\"" + (id % 5 == 0 ? "USD" : "AZN") + "\""
+                + ",\"category\":\"STREAMING\",\"billingPeriod\":\"MONTHLY\""
+                + ",\"websiteUrl\":\"https://example.com/" + id + "\",\"logoUrl\":\"https://cdn.example.com/" + id + ".png\""
+                + ",\"isActive\":true}";
+    }
+
+    // Feign sends list parameters repeated (ids=1&ids=2); comma-separated values are accepted too
+    private static List<Long> idsParameter(String rawQuery) {
+        List<Long> ids = new ArrayList<>();
+        if (rawQuery == null) {
+            return ids;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.startsWith("ids=")) {
+                for (String value : URLDecoder.decode(pair.substring(4), StandardCharsets.UTF_8).split(",")) {
+                    if (!value.isBlank()) {
+                        ids.add(Long.parseLong(value.trim()));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String lastPathSegment(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static void simulateLatency(Duration latency) {
+        if (latency.isZero()) {
+            return;
+        }
+        long millis = latency.toMillis();
+        long jitter = ThreadLocalRandom.current().nextLong(millis / 2 + 1);
+        try {
+            Thread.sleep(millis + jitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void drain(InputStream body) throws IOException {
+        body.transferTo(OutputStream.nullOutputStream());
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
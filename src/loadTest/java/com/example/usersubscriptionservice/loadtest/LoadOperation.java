@@ -0,0 +1,40 @@
+package com.example.usersubscriptionservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The endpoints exercised by the load test and their share of the traffic, roughly what the
+ * frontend sends: mostly reads of the user's own subscriptions, a few changes.
+ */
+enum LoadOperation {
+
+    LIST(35),
+    GET_BY_ID(20),
+    MONTHLY_COST(20),
+    CREATE(10),
+    UPDATE(10),
+    DELETE(5);
+
+    private static final int TOTAL_WEIGHT = Arrays.stream(values()).mapToInt(LoadOperation::weight).sum();
+
+    private final int weight;
+
+    LoadOperation(int weight) {
+        this.weight = weight;
+    }
+
+    int weight() {
+        return weight;
+    }
+
+    static LoadOperation pick(int random) {
+        int remaining = Math.floorMod(random, TOTAL_WEIGHT);
+        for (LoadOperation operation : values()) {
+            remaining -= operation.weight;
+            if (remaining < 0) {
+                return operation;
+            }
+        }
+        return LIST;
+    }
+}
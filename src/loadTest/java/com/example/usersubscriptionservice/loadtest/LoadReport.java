@@ -0,0 +1,165 @@
+package com.example.usersubscriptionservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per operation of one measured run, written as
+ * {@code load-test.json} and {@code load-test.txt} and compared against a committed baseline.
+ */
+class LoadReport {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+
+    LoadReport() {
+        for (LoadOperation operation : LoadOperation.values()) {
+            // Microseconds, up to one minute, 3 significant digits
+            latencies.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(LoadOperation operation, long elapsedNanos, boolean failed) {
+        Histogram histogram = latencies.get(operation);
+        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), histogram.getHighestTrackableValue()));
+        if (failed) {
+            errors.get(operation).increment();
+        }
+    }
+
+    ObjectNode toJson(Duration elapsed, int concurrency, Map<String, String> settings) {
+        double seconds = elapsed.toNanos() / 1e9;
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("durationSeconds", round(seconds));
+        root.put("concurrency", concurrency);
+        ObjectNode settingsNode = root.putObject("settings");
+        settings.forEach(settingsNode::put);
+
+        long totalRequests = 0;
+        long totalErrors = 0;
+        ObjectNode operations = root.putObject("operations");
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            long failed = errors.get(operation).sum();
+            totalRequests += count;
+            totalErrors += failed;
+
+            ObjectNode node = operations.putObject(operation.name());
+            node.put("requests", count);
+            node.put("errors", failed);
+            node.put("throughput", round(count / seconds));
+            node.put("p50", millis(histogram.getValueAtPercentile(50)));
+            node.put("p90", millis(histogram.getValueAtPercentile(90)));
+            node.put("p99", millis(histogram.getValueAtPercentile(99)));
+            node.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            node.put("max", millis(histogram.getMaxValue()));
+        }
+        root.put("requests", totalRequests);
+        root.put("errors", totalErrors);
+        root.put("throughput", round(totalRequests / seconds));
+        return root;
+    }
+
+    static void write(ObjectNode report, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        objectMapper.writeValue(directory.resolve("load-test.json").toFile(), report);
+        Files.writeString(directory.resolve("load-test.txt"), toText(report), StandardCharsets.UTF_8);
+    }
+
+    static String toText(JsonNode report) {
+        StringBuilder text = new StringBuilder(String.format("%-14s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        report.path("operations").fields().forEachRemaining(entry -> {
+            JsonNode node = entry.getValue();
+            text.append(String.format("%-14s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                    node.path("requests").asLong(), node.path("errors").asLong(), node.path("throughput").asDouble(),
+                    node.path("p50").asDouble(), node.path("p90").asDouble(), node.path("p99").asDouble(),
+                    node.path("p999").asDouble(), node.path("max").asDouble()));
+        });
+        text.append(String.format("%-14s %9d %7d %10.1f%n", "total",
+                report.path("requests").asLong(), report.path("errors").asLong(), report.path("throughput").asDouble()));
+        return text.toString();
+    }
+
+    /**
+     * Compares a run against the baseline. An operation regresses when its p99 grew, or its throughput
+     * or the overall throughput dropped, by more than {@code tolerance}; or when its error rate grew by
+     * more than {@code tolerance} percentage points.
+     *
+     * @return one line per regression, empty if the run is within tolerance
+     */
+    static List<String> compare(JsonNode baseline, JsonNode current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+
+        double baselineThroughput = baseline.path("throughput").asDouble();
+        double currentThroughput = current.path("throughput").asDouble();
+        if (currentThroughput < baselineThroughput * (1 - tolerance)) {
+            regressions.add(String.format("total throughput %.1f -> %.1f req/s", baselineThroughput, currentThroughput));
+        }
+
+        baseline.path("operations").fields().forEachRemaining(entry -> {
+            String operation = entry.getKey();
+            JsonNode before = entry.getValue();
+            JsonNode after = current.path("operations").path(operation);
+            if (after.isMissingNode()) {
+                regressions.add(operation + " was not exercised");
+                return;
+            }
+            if (after.path("p99").asDouble() > before.path("p99").asDouble() * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %.2f -> %.2f ms", operation,
+                        before.path("p99").asDouble(), after.path("p99").asDouble()));
+            }
+            if (after.path("throughput").asDouble() < before.path("throughput").asDouble() * (1 - tolerance)) {
+                regressions.add(String.format("%s throughput %.1f -> %.1f req/s", operation,
+                        before.path("throughput").asDouble(), after.path("throughput").asDouble()));
+            }
+            double errorRateBefore = errorRate(before);
+            double errorRateAfter = errorRate(after);
+            if (errorRateAfter > errorRateBefore + tolerance) {
+                regressions.add(String.format("%s error rate %.2f%% -> %.2f%%", operation,
+                        errorRateBefore * 100, errorRateAfter * 100));
+            }
+        });
+        return regressions;
+    }
+
+    static JsonNode read(Path file) throws IOException {
+        return objectMapper.readTree(file.toFile());
+    }
+
+    private static double errorRate(JsonNode operation) {
+        long requests = operation.path("requests").asLong();
+        return requests == 0 ? 0 : (double) operation.path("errors").asLong() / requests;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.usersubscriptionservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a realistic mix of authenticated requests against the whole service, with Postgres in a
+ * container and the downstream services replaced by {@link DownstreamStubs}. Run with
+ * {@code ./gradlew loadTest}; every setting can be overridden with {@code -Ploadtest.<name>=...}:
+ * <ul>
+ *     <li>{@code duration} and {@code warmup} of the measured and the discarded phase;</li>
+ *     <li>{@code concurrency}, the number of clients sending requests back to back, and {@code users};</li>
+ *     <li>{@code <service>.latency} and {@code <service>.error-rate} of each stub;</li>
+ *     <li>{@code baseline} and {@code tolerance} for the regression check.</li>
+ * </ul>
+ * The report is written to {@code build/reports/load-test}. If the baseline file exists the test fails
+ * when the run regressed against it; without one the run only reports.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserSubscriptionLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSubscriptionLoadTest.class);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final DownstreamStubs stubs = DownstreamStubs.start();
+
+    private static final Duration DURATION = durationSetting("duration", "60s");
+    private static final Duration WARMUP = durationSetting("warmup", "15s");
+    private static final int CONCURRENCY = Integer.parseInt(setting("concurrency", "32"));
+    private static final int USERS = Math.max(CONCURRENCY, Integer.parseInt(setting("users", "256")));
+    private static final int SEED_SUBSCRIPTIONS_PER_USER = 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(clients)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("services.user-service.url", stubs::getUserServiceUrl);
+        registry.add("services.subscription-service.url", stubs::getSubscriptionServiceUrl);
+        registry.add("services.email-service.url", stubs::getEmailServiceUrl);
+
+        // Measure the service, not its debug logging
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.example.usersubscriptionservice", () -> "WARN");
+        registry.add("logging.level.feign", () -> "WARN");
+        registry.add("logging.level.org.springframework.security", () -> "WARN");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+        registry.add("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stubs.close();
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        List<VirtualUser> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new VirtualUser(token("loaduser" + i)));
+        }
+        seed(users);
+
+        logger.warn("Warming up for {}", WARMUP);
+        run(users, WARMUP, new LoadReport());
+
+        logger.warn("Measuring {} with {} concurrent clients over {} users", DURATION, CONCURRENCY, USERS);
+        LoadReport report = new LoadReport();
+        Instant start = Instant.now();
+        run(users, DURATION, report);
+        Duration elapsed = Duration.between(start, Instant.now());
+
+        ObjectNode result = report.toJson(elapsed, CONCURRENCY, settings());
+        Path reportDir = Path.of(setting("report-dir", "build/reports/load-test"));
+        LoadReport.write(result, reportDir);
+        logger.warn("Load test results ({}):\n{}", reportDir.toAbsolutePath(), LoadReport.toText(result));
+
+        Path baseline = Path.of(setting("baseline", "src/loadTest/baseline.json"));
+        if (!Files.exists(baseline)) {
+            logger.warn("No baseline at {}, skipping the regression check", baseline);
+            return;
+        }
+        double tolerance = Double.parseDouble(setting("tolerance", "0.20"));
+        List<String> regressions = LoadReport.compare(LoadReport.read(baseline), result, tolerance);
+        assertTrue(regressions.isEmpty(), () -> "Regressed against " + baseline + " by more than "
+                + (tolerance * 100) + "%:\n" + String.join("\n", regressions));
+    }
+
+    // Gives every user a few subscriptions, so reads hit realistic rows from the start
+    private void seed(List<VirtualUser> users) throws Exception {
+        List<Future<?>> pending = new ArrayList<>();
+        for (VirtualUser user : users) {
+            pending.add(clients.submit(() -> {
+                for (int i = 0; i < SEED_SUBSCRIPTIONS_PER_USER; i++) {
+                    user.execute(LoadOperation.CREATE);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : pending) {
+            future.get();
+        }
+    }
+
+    /**
+     * Runs {@link #CONCURRENCY} closed-loop clients until the deadline. Each client owns a disjoint
+     * slice of the users, so no two clients change the same user's subscriptions at once.
+     */
+    private void run(List<VirtualUser> users, Duration duration, LoadReport report) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < CONCURRENCY; worker++) {
+            List<VirtualUser> slice = new ArrayList<>();
+            for (int i = worker; i < users.size(); i += CONCURRENCY) {
+                slice.add(users.get(i));
+            }
+            workers.add(clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    VirtualUser user = slice.get(random.nextInt(slice.size()));
+                    LoadOperation operation = LoadOperation.pick(random.nextInt());
+                    long start = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = !user.execute(operation);
+                    } catch (IOException e) {
+                        failed = true;
+                    }
+                    report.record(operation, System.nanoTime() - start, failed);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : workers) {
+            future.get();
+        }
+    }
+
+    private String token(String username) {
+        return Jwts.builder()
+                .subject(username)
+                .claim("role", "USER")
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plus(Duration.ofHours(6))))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .compact();
+    }
+
+    private Map<String, String> settings() {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("users", String.valueOf(USERS));
+        settings.put("warmup", WARMUP.toString());
+        for (String service : List.of("user-service", "subscription-service", "email-service")) {
+            settings.put(service + ".latency", setting(service + ".latency", "20ms"));
+            settings.put(service + ".error-rate", setting(service + ".error-rate", "0"));
+        }
+        return settings;
+    }
+
+    private static String setting(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static Duration durationSetting(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(setting(name, defaultValue));
+    }
+
+    /**
+     * One end user with a token and the subscriptions they currently own, keyed by user subscription
+     * ID with the catalog subscription ID as value. Only touched by the client owning the user.
+     */
+    private class VirtualUser {
+
+        private final String authorization;
+        private final Map<Long, Long> owned = new HashMap<>();
+
+        VirtualUser(String token) {
+            this.authorization = "Bearer " + token;
+        }
+
+        // True if the service answered with a 2xx status
+        boolean execute(LoadOperation operation) throws IOException, InterruptedException {
+            Long ownedId = anyOwned();
+            return switch (operation) {
+                case LIST -> send(get("")).statusCode() < 300;
+                case MONTHLY_COST -> send(get("/monthly-cost")).statusCode() < 300;
+                case GET_BY_ID -> ownedId == null
+                        ? send(get("")).statusCode() < 300
+                        : send(get("/" + ownedId)).statusCode() < 300;
+                case CREATE -> create();
+                case UPDATE -> ownedId == null ? create() : update(ownedId);
+                case DELETE -> ownedId == null ? create() : delete(ownedId);
+            };
+        }
+
+        private boolean create() throws IOException, InterruptedException {
+            Long subscriptionId = unusedSubscriptionId();
+            if (subscriptionId == null) {
+                return delete(anyOwned());
+            }
+            LocalDate today = LocalDate.now();
+            HttpResponse<String> response = send(request("")
+                    .POST(json(Map.of(
+                            "subscriptionId", subscriptionId,
+                            "startDate", today.toString(),
+                            "nextBillingDate", today.plusDays(ThreadLocalRandom.current().nextInt(1, 30)).toString(),
+                            "notes", "load test")))
+                    .build());
+            if (response.statusCode() != 201) {
+                return false;
+            }
+            JsonNode subscription = objectMapper.readTree(response.body()).path("subscription");
+            owned.put(subscription.path("id").asLong(), subscriptionId);
+            return true;
+        }
+
+        private boolean update(Long id) throws IOException, InterruptedException {
+            LocalDate today = LocalDate.now();
+            return send(request("/" + id)
+                    .PUT(json(Map.of(
+                            "subscriptionId", owned.get(id),
+                            "startDate", today.minusMonths(1).toString(),
+                            "nextBillingDate", today.plusDays(ThreadLocalRandom.current().nextInt(1, 30)).toString(),
+                            "notes", "updated by load test")))
+                    .build()).statusCode() < 300;
+        }
+
+        private boolean delete(Long id) throws IOException, InterruptedException {
+            boolean deleted = send(request("/" + id).DELETE().build()).statusCode() < 300;
+            if (deleted) {
+                owned.remove(id);
+            }
+            return deleted;
+        }
+
+        private Long anyOwned() {
+            if (owned.isEmpty()) {
+                return null;
+            }
+            int skip = ThreadLocalRandom.current().nextInt(owned.size());
+            return owned.keySet().stream().skip(skip).findFirst().orElse(null);
+        }
+
+        private Long unusedSubscriptionId() {
+            if (owned.size() >= DownstreamStubs.CATALOG_SIZE) {
+                return null;
+            }
+            long candidate;
+            do {
+                candidate = ThreadLocalRandom.current().nextLong(1, DownstreamStubs.CATALOG_SIZE + 1);
+            } while (owned.containsValue(candidate));
+            return candidate;
+        }
+
+        private HttpRequest get(String path) {
+            return request(path).GET().build();
+        }
+
+        private HttpRequest.Builder request(String path) {
+            return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/user-subscriptions" + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json");
+        }
+
+        private HttpRequest.BodyPublisher json(Map<String, Object> body) throws IOException {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        }
+
+        private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+            return http.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
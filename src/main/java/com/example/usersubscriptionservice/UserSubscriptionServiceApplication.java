@@ -1,5 +1,6 @@
 package com.example.usersubscriptionservice;
 
+import com.example.usersubscriptionservice.config.FeignHttpClientConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
@@ -7,7 +8,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
-@EnableFeignClients
+@EnableFeignClients(defaultConfiguration = FeignHttpClientConfig.class)
 @EnableScheduling
 @EnableTransactionManagement
 public class UserSubscriptionServiceApplication {
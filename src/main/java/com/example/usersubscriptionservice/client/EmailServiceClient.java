@@ -13,6 +13,10 @@ public interface EmailServiceClient {
     @PostMapping("/api/email/subscription-reminder")
     void sendSubscriptionReminder(@RequestBody Map<String, Object> emailRequest);
 
+    // All of a user's upcoming charges in one email: reminders[] and totals per currency
+    @PostMapping("/api/email/subscription-reminder-digest")
+    void sendSubscriptionReminderDigest(@RequestBody Map<String, Object> emailRequest);
+
     @PostMapping("/api/email/subscription-added")
     void sendSubscriptionAddedNotification(@RequestBody Map<String, Object> emailRequest);
 
@@ -1,14 +1,20 @@
 package com.example.usersubscriptionservice.client;
 
+import com.example.usersubscriptionservice.dto.SubscriptionEnvelope;
+import com.example.usersubscriptionservice.dto.SubscriptionListEnvelope;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.Map;
+import java.util.List;
 
 @FeignClient(name = "subscription-service", url = "${services.subscription-service.url}")
 public interface SubscriptionServiceClient {
 
     @GetMapping("/api/subscriptions/available/{id}")
-    Map<String, Object> getSubscriptionById(@PathVariable("id") Long id);
-}
\ No newline at end of file
+    SubscriptionEnvelope getSubscriptionById(@PathVariable("id") Long id);
+
+    @GetMapping("/api/subscriptions/available/batch")
+    SubscriptionListEnvelope getSubscriptionsByIds(@RequestParam("ids") List<Long> ids);
+}
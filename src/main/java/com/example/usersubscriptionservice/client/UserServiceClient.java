@@ -1,14 +1,13 @@
 package com.example.usersubscriptionservice.client;
 
+import com.example.usersubscriptionservice.dto.UserEnvelope;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
-import java.util.Map;
-
 @FeignClient(name = "user-service", url = "${services.user-service.url}")
 public interface UserServiceClient {
 
     @GetMapping("/api/users/{username}")
-    Map<String, Object> getUserByUsername(@PathVariable("username") String username);
+    UserEnvelope getUserByUsername(@PathVariable("username") String username);
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.example.usersubscriptionservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for work that blocks on downstream services.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} every task gets its own virtual thread, the same as
+ * Tomcat requests and {@code @Scheduled} jobs in that mode; concurrency towards each downstream
+ * service is bounded by the callers, not by the pool size. Otherwise bounded platform-thread pools
+ * are used.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${executors.downstream-lookup.core-pool-size:4}")
+    private int downstreamCorePoolSize;
+
+    @Value("${executors.downstream-lookup.max-pool-size:16}")
+    private int downstreamMaxPoolSize;
+
+    @Value("${executors.downstream-lookup.queue-capacity:500}")
+    private int downstreamQueueCapacity;
+
+    @Value("${executors.parallel-lookup.pool-size:64}")
+    private int parallelLookupPoolSize;
+
+    @Value("${executors.hedged-call.pool-size:64}")
+    private int hedgedCallPoolSize;
+
+    @Value("${reminders.workers:16}")
+    private int reminderWorkers;
+
+    @Value("${exports.max-concurrent:4}")
+    private int maxConcurrentExports;
+
+    // Used for background cache refreshes; nothing waits on these tasks
+    @Bean
+    public AsyncTaskExecutor downstreamLookupExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("downstream-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(downstreamCorePoolSize);
+        executor.setMaxPoolSize(downstreamMaxPoolSize);
+        executor.setQueueCapacity(downstreamQueueCapacity);
+        executor.setThreadNamePrefix("downstream-");
+        return executor;
+    }
+
+    /**
+     * Runs lookups that a caller fans out and then waits for. Tasks are never queued: each one is handed
+     * to an idle thread, or run by the caller itself when all threads are busy, so a caller can never
+     * wait on work stuck behind other waiting callers.
+     */
+    @Bean
+    public AsyncTaskExecutor parallelLookupExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("parallel-lookup-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelLookupPoolSize);
+        executor.setMaxPoolSize(parallelLookupPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("parallel-lookup-");
+        return executor;
+    }
+
+    /**
+     * Runs the attempts of hedged Feign calls (see {@link ResilientFeignClient}). The callers block on
+     * these tasks, so they get a pool of their own and are never queued; when every thread is busy the
+     * task is rejected and the client calls without hedging.
+     */
+    @Bean
+    public AsyncTaskExecutor hedgedCallExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("hedged-call-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hedgedCallPoolSize);
+        executor.setMaxPoolSize(hedgedCallPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("hedged-call-");
+        return executor;
+    }
+
+    // Runs the per-row work of the billing reminder job; the chunk size bounds the queue
+    @Bean
+    public AsyncTaskExecutor reminderWorkerExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("reminder-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reminderWorkers);
+        executor.setMaxPoolSize(reminderWorkers);
+        executor.setThreadNamePrefix("reminder-");
+        return executor;
+    }
+
+    /**
+     * Writes streaming responses (see {@link WebMvcConfig}). Each running export holds a database
+     * connection, so at most {@code exports.max-concurrent} run at once, also with virtual threads.
+     * Further exports wait for a slot; the pooled executor queues twice as many and rejects the rest.
+     */
+    @Bean
+    public AsyncTaskExecutor streamingResponseExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = virtualThreadExecutor("export-");
+            executor.setConcurrencyLimit(maxConcurrentExports);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentExports);
+        executor.setMaxPoolSize(maxConcurrentExports);
+        executor.setQueueCapacity(maxConcurrentExports * 2);
+        executor.setThreadNamePrefix("export-");
+        return executor;
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        // Lets in-flight tasks finish on shutdown, like the pooled executors do
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
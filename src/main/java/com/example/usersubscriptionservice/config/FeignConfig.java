@@ -5,6 +5,8 @@ import feign.RequestTemplate;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -22,24 +24,30 @@ public class FeignConfig {
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate requestTemplate) {
-                ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes != null) {
-                    HttpServletRequest request = attributes.getRequest();
+                // The security context is propagated to lookup threads, the servlet request is not
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication instanceof AnonymousAuthenticationToken) {
+                    authentication = null;
+                }
 
-                    // JWT token-ı ötür
-                    String authHeader = request.getHeader("Authorization");
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        requestTemplate.header("Authorization", authHeader);
+                // JWT token-ı ötür
+                String authHeader = null;
+                if (authentication != null && authentication.getCredentials() instanceof String token) {
+                    authHeader = "Bearer " + token;
+                } else {
+                    ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+                    if (attributes != null) {
+                        HttpServletRequest request = attributes.getRequest();
+                        authHeader = request.getHeader("Authorization");
                     }
+                }
+                if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                    requestTemplate.header("Authorization", authHeader);
+                }
 
-                    // User information headers for internal service communication
-                    String username = SecurityContextHolder.getContext().getAuthentication() != null
-                            ? SecurityContextHolder.getContext().getAuthentication().getName()
-                            : null;
-
-                    if (username != null) {
-                        requestTemplate.header("X-User-Id", username);
-                    }
+                // User information headers for internal service communication
+                if (authentication != null) {
+                    requestTemplate.header("X-User-Id", authentication.getName());
                 }
             }
         };
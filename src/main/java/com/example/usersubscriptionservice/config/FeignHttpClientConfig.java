@@ -0,0 +1,210 @@
+package com.example.usersubscriptionservice.config;
+
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.env.Environment;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * HTTP transport for the Feign clients, registered as the default configuration of every client in
+ * {@code @EnableFeignClients}. Each client gets its own context and therefore its own connection pool,
+ * tuned by {@code http-clients.<client name>.*} with {@code http-clients.default.*} as fallback.
+ * <p>
+ * Deliberately not a {@code @Configuration}: component scanning would register these beans once in the
+ * application context instead of once per client.
+ * <p>
+ * Pooled clients publish the {@code httpcomponents.httpclient.pool.*} metrics (leased, available,
+ * pending, limits) and {@code httpcomponents.httpclient.pool.lease.wait}, tagged with {@code httpclient}.
+ * Clients with {@code http2: true} use the JDK HTTP/2 client instead, which multiplexes requests over
+ * one connection per host and has no pool to measure.
+ * <p>
+ * Either transport is wrapped in a {@link ResilientFeignClient} with the client's circuit breaker,
+ * bulkhead, adaptive timeout and optional hedging.
+ */
+public class FeignHttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeignHttpClientConfig.class);
+
+    @Value("${spring.cloud.openfeign.client.name}")
+    private String clientName;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+
+    @Autowired
+    @Qualifier("hedgedCallExecutor")
+    private AsyncTaskExecutor hedgedCallExecutor;
+
+    // Circuit breaker and bulkhead are named after the client and configured under resilience4j.*.instances
+    @Bean
+    public Client feignClient() {
+        return new ResilientFeignClient(transport(), clientName,
+                circuitBreakerRegistry.circuitBreaker(clientName),
+                bulkheadRegistry.bulkhead(clientName),
+                hedgedCallExecutor,
+                resilienceSettings(),
+                meterRegistry);
+    }
+
+    private Client transport() {
+        if (Boolean.parseBoolean(property("http2", "false"))) {
+            logger.info("Feign client {} uses HTTP/2", clientName);
+            return new Http2Client(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(durationProperty("connect-timeout", "5s"))
+                    .build());
+        }
+        return new ApacheHttp5Client(pooledHttpClient());
+    }
+
+    private ResilientFeignClient.Settings resilienceSettings() {
+        String readTimeout = environment.getProperty("spring.cloud.openfeign.client.config." + clientName + ".readTimeout",
+                environment.getProperty("spring.cloud.openfeign.client.config.default.readTimeout", "60000"));
+        ResilientFeignClient.Settings settings = new ResilientFeignClient.Settings(
+                Boolean.parseBoolean(property("adaptive-timeout.enabled", "true")),
+                Double.parseDouble(property("adaptive-timeout.percentile", "0.99")),
+                Double.parseDouble(property("adaptive-timeout.multiplier", "2.0")),
+                durationProperty("adaptive-timeout.min", "250ms"),
+                Duration.ofMillis(Long.parseLong(readTimeout)),
+                Boolean.parseBoolean(property("hedge.enabled", "false")),
+                durationProperty("hedge.delay", "100ms"));
+        logger.info("Feign client {} resilience settings: {}", clientName, settings);
+        return settings;
+    }
+
+    private CloseableHttpClient pooledHttpClient() {
+        int maxConnections = Integer.parseInt(property("max-connections", "200"));
+        int maxConnectionsPerRoute = Integer.parseInt(property("max-connections-per-route", "50"));
+        Duration idleTimeout = durationProperty("idle-timeout", "30s");
+        Duration keepAlive = durationProperty("keep-alive", "1m");
+        Duration timeToLive = durationProperty("time-to-live", "5m");
+        Duration leaseTimeout = durationProperty("lease-timeout", "1s");
+        boolean compression = Boolean.parseBoolean(property("compression", "true"));
+
+        Timer leaseWait = Timer.builder("httpcomponents.httpclient.pool.lease.wait")
+                .description("Time spent waiting for a pooled connection")
+                .tag("httpclient", clientName)
+                .register(meterRegistry);
+
+        PoolingHttpClientConnectionManager connectionManager = new InstrumentedConnectionManager(leaseWait, leaseTimeout);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true)
+                .build());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setTimeToLive(TimeValue.of(timeToLive))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, clientName).bindTo(meterRegistry);
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                // Honour the server's Keep-Alive header, but never keep an idle connection longer than configured
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.of(keepAlive).compareTo(serverKeepAlive) < 0 ? TimeValue.of(keepAlive) : serverKeepAlive;
+                });
+        // Content compression is on by default: gzip/deflate are requested and decoded transparently
+        if (!compression) {
+            builder.disableContentCompression();
+        }
+
+        logger.info("Feign client {} uses a connection pool: maxConnections={}, maxConnectionsPerRoute={}, idleTimeout={}, keepAlive={}",
+                clientName, maxConnections, maxConnectionsPerRoute, idleTimeout, keepAlive);
+        return builder.build();
+    }
+
+    private String property(String key, String defaultValue) {
+        String value = environment.getProperty("http-clients." + clientName + "." + key);
+        return value != null ? value : environment.getProperty("http-clients.default." + key, defaultValue);
+    }
+
+    private Duration durationProperty(String key, String defaultValue) {
+        return DurationStyle.detectAndParse(property(key, defaultValue));
+    }
+
+    /**
+     * Times every connection lease and bounds how long a request waits for one. Feign's per-request
+     * options replace the client's default request config, so the pool wait limit is enforced here.
+     */
+    private static class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer leaseWait;
+        private final Timeout leaseTimeout;
+
+        InstrumentedConnectionManager(Timer leaseWait, Duration leaseTimeout) {
+            this.leaseWait = leaseWait;
+            this.leaseTimeout = Timeout.of(leaseTimeout);
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest leaseRequest = super.lease(id, route, requestTimeout, state);
+            Timer.Sample sample = Timer.start();
+
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    Timeout effectiveTimeout = Timeout.isPositive(timeout) && timeout.compareTo(leaseTimeout) < 0
+                            ? timeout
+                            : leaseTimeout;
+                    try {
+                        return leaseRequest.get(effectiveTimeout);
+                    } finally {
+                        sample.stop(leaseWait);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return leaseRequest.cancel();
+                }
+            };
+        }
+    }
+}
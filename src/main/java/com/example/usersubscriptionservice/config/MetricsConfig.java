@@ -0,0 +1,21 @@
+package com.example.usersubscriptionservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Controller endpoints ({@code http.server.requests}), repository methods
+ * ({@code spring.data.repository.invocations}) and Feign methods ({@code http.client.requests}) are
+ * timed by Boot and Spring Cloud; the histograms are enabled in {@code management.metrics.distribution}.
+ * This adds {@code @Timed} support for the service layer.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
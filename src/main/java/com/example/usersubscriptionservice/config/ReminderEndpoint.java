@@ -0,0 +1,23 @@
+package com.example.usersubscriptionservice.config;
+
+import com.example.usersubscriptionservice.service.BillingReminderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Progress and throughput of the current or last billing reminder run (/actuator/reminders)
+@Component
+@Endpoint(id = "reminders")
+public class ReminderEndpoint {
+
+    @Autowired
+    private BillingReminderService billingReminderService;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return billingReminderService.getProgress().toMap();
+    }
+}
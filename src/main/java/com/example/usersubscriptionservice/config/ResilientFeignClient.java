@@ -0,0 +1,335 @@
+package com.example.usersubscriptionservice.config;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wraps the transport of one Feign client with the resilience policies for that downstream service:
+ * <ul>
+ *     <li>a bulkhead bounding concurrent calls, so a slow service cannot hold every thread;</li>
+ *     <li>a circuit breaker that fails calls immediately while the service is failing or slow;
+ *     I/O errors and 5xx responses count as failures;</li>
+ *     <li>an adaptive read timeout derived from the recent latency percentile, capped by the configured
+ *     {@code readTimeout}; calls that time out count with the time they took, so the timeout grows
+ *     again when the service slows down;</li>
+ *     <li>optionally, hedged GETs: if the first attempt is slower than usual a second one is sent and
+ *     whichever answers first wins.</li>
+ * </ul>
+ * Calls rejected by the bulkhead or the open breaker throw immediately; callers fall back to cached data.
+ */
+public class ResilientFeignClient implements Client {
+
+    private final Client delegate;
+    private final String clientName;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final AsyncTaskExecutor hedgeExecutor;
+    private final Settings settings;
+    private final LatencyWindow latencies = new LatencyWindow(1024);
+
+    private final Counter bulkheadRejections;
+    private final Counter breakerRejections;
+    private final Counter hedgedCalls;
+
+    public ResilientFeignClient(Client delegate, String clientName, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                                AsyncTaskExecutor hedgeExecutor, Settings settings, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.clientName = clientName;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.hedgeExecutor = hedgeExecutor;
+        this.settings = settings;
+
+        bulkheadRejections = Counter.builder("downstream.calls.rejected")
+                .description("Calls rejected before reaching the downstream service")
+                .tags("client", clientName, "reason", "bulkhead")
+                .register(meterRegistry);
+        breakerRejections = Counter.builder("downstream.calls.rejected")
+                .description("Calls rejected before reaching the downstream service")
+                .tags("client", clientName, "reason", "circuit-open")
+                .register(meterRegistry);
+        hedgedCalls = Counter.builder("downstream.calls.hedged")
+                .description("GET requests for which a second attempt was sent")
+                .tag("client", clientName)
+                .register(meterRegistry);
+        Gauge.builder("downstream.read.timeout", latencies, window -> adaptiveReadTimeoutMillis(settings.readTimeout().toMillis()))
+                .description("Read timeout currently applied to calls, in milliseconds")
+                .tag("client", clientName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        long readTimeoutMillis = adaptiveReadTimeoutMillis(options.readTimeoutMillis());
+        Request.Options adaptedOptions = new Request.Options(
+                options.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                readTimeoutMillis, TimeUnit.MILLISECONDS,
+                options.isFollowRedirects());
+
+        if (settings.hedgeEnabled() && request.httpMethod() == Request.HttpMethod.GET) {
+            return executeHedged(request, adaptedOptions);
+        }
+        return attempt(request, adaptedOptions);
+    }
+
+    private Response attempt(Request request, Request.Options options) throws IOException {
+        try {
+            bulkhead.acquirePermission();
+        } catch (BulkheadFullException e) {
+            bulkheadRejections.increment();
+            throw e;
+        }
+
+        try {
+            try {
+                circuitBreaker.acquirePermission();
+            } catch (CallNotPermittedException e) {
+                breakerRejections.increment();
+                throw e;
+            }
+
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = delegate.execute(request, options);
+            } catch (IOException | RuntimeException e) {
+                long elapsed = System.nanoTime() - start;
+                if (isReadTimeout(e)) {
+                    // The real latency is at least this long; leaving it out would let the timeout
+                    // shrink while the service slows down
+                    latencies.record(elapsed);
+                }
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+                throw e;
+            }
+
+            long elapsed = System.nanoTime() - start;
+            latencies.record(elapsed);
+            if (response.status() >= 500) {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+                        new IOException(clientName + " responded with HTTP " + response.status()));
+            } else {
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            }
+            return response;
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    private static boolean isReadTimeout(Exception e) {
+        return e instanceof SocketTimeoutException
+                || (e instanceof HttpTimeoutException && !(e instanceof HttpConnectTimeoutException));
+    }
+
+    private Response executeHedged(Request request, Request.Options options) throws IOException {
+        CompletableFuture<Response> primary;
+        try {
+            primary = attemptAsync(request, options);
+        } catch (RejectedExecutionException e) {
+            // Every hedging thread is busy, call without hedging
+            return attempt(request, options);
+        }
+        // One attempt can take the connect timeout plus the read timeout; nothing waits longer than that
+        long attemptMillis = options.connectTimeoutMillis() + options.readTimeoutMillis();
+        try {
+            return primary.get(hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The first attempt is slower than usual, race a second one against it
+            CompletableFuture<Response> hedge;
+            try {
+                hedge = attemptAsync(request, options);
+            } catch (RejectedExecutionException rejected) {
+                return await(primary, attemptMillis);
+            }
+            hedgedCalls.increment();
+            return await(firstSuccessful(primary, hedge), attemptMillis);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel(true);
+            throw new IOException("Interrupted while calling " + clientName, e);
+        }
+    }
+
+    /**
+     * Starts an attempt on the hedge executor. Cancelling the returned future interrupts the attempt's
+     * thread, and a response arriving after the future was cancelled is closed, so its connection goes
+     * back to the pool.
+     */
+    private CompletableFuture<Response> attemptAsync(Request request, Request.Options options) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        Future<?> task = hedgeExecutor.submit(() -> {
+            try {
+                Response response = attempt(request, options);
+                if (!result.complete(response)) {
+                    response.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Completes with the first successful response and closes the other; fails only if both fail
+    private CompletableFuture<Response> firstSuccessful(CompletableFuture<Response> first, CompletableFuture<Response> second) {
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<Response> attempt : Arrays.asList(first, second)) {
+            attempt.whenComplete((response, error) -> {
+                if (error == null) {
+                    if (!winner.complete(response)) {
+                        response.close();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        winner.whenComplete((response, error) -> {
+            if (winner.isCancelled()) {
+                first.cancel(true);
+                second.cancel(true);
+            }
+        });
+        return winner;
+    }
+
+    private Response await(CompletableFuture<Response> future, long timeoutMillis) throws IOException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Interrupts the attempts. That ends a wait for a bulkhead permit or a pooled connection, and
+            // a socket read on a virtual thread; a read on a platform thread keeps its thread and permit
+            // until the transport's read timeout.
+            future.cancel(true);
+            throw new SocketTimeoutException(clientName + " did not respond within " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IOException("Interrupted while calling " + clientName, e);
+        }
+    }
+
+    // Returns checked failures to be thrown by the caller and throws unchecked ones directly
+    private IOException unwrap(Throwable error) {
+        if (error instanceof IOException ioException) {
+            return ioException;
+        }
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException(error);
+    }
+
+    private long adaptiveReadTimeoutMillis(long configuredMillis) {
+        if (!settings.adaptiveTimeoutEnabled()) {
+            return configuredMillis;
+        }
+        long percentileNanos = latencies.percentile(settings.timeoutPercentile());
+        if (percentileNanos < 0) {
+            return configuredMillis;
+        }
+        long adaptiveMillis = (long) (TimeUnit.NANOSECONDS.toMillis(percentileNanos) * settings.timeoutMultiplier());
+        return Math.min(configuredMillis, Math.max(settings.minReadTimeout().toMillis(), adaptiveMillis));
+    }
+
+    private long hedgeDelayMillis() {
+        long p95Nanos = latencies.percentile(0.95);
+        return p95Nanos < 0
+                ? settings.hedgeDelay().toMillis()
+                : Math.max(settings.hedgeDelay().toMillis(), TimeUnit.NANOSECONDS.toMillis(p95Nanos));
+    }
+
+    /**
+     * Per-client settings, read from {@code http-clients.<client name>.*}.
+     *
+     * @param readTimeout the configured Feign {@code readTimeout}, reported by the timeout gauge until
+     *                    enough calls have been observed; each call is capped by its own request options
+     */
+    public record Settings(boolean adaptiveTimeoutEnabled, double timeoutPercentile, double timeoutMultiplier,
+                           Duration minReadTimeout, Duration readTimeout,
+                           boolean hedgeEnabled, Duration hedgeDelay) {
+    }
+
+    /**
+     * The latencies of the most recent calls. Percentiles are recomputed at most every 100 samples,
+     * so the hot path only writes one slot.
+     */
+    static class LatencyWindow {
+
+        private static final int MIN_SAMPLES = 100;
+        private static final int RECOMPUTE_EVERY = 100;
+
+        private final AtomicLongArray samples;
+        // A long, so the count does not wrap after 2^31 calls and switch the percentiles off
+        private final AtomicLong count = new AtomicLong();
+        private volatile long[] sorted;
+        private volatile long sortedAt = -1;
+
+        LatencyWindow(int size) {
+            samples = new AtomicLongArray(size);
+        }
+
+        void record(long nanos) {
+            long index = count.getAndIncrement();
+            samples.set(Math.floorMod(index, samples.length()), nanos);
+        }
+
+        // -1 until enough calls have been seen to say anything about the latency
+        long percentile(double percentile) {
+            long recorded = count.get();
+            if (recorded < MIN_SAMPLES) {
+                return -1;
+            }
+
+            long[] snapshot = sorted;
+            if (snapshot == null || recorded - sortedAt >= RECOMPUTE_EVERY) {
+                int size = (int) Math.min(recorded, samples.length());
+                snapshot = new long[size];
+                for (int i = 0; i < size; i++) {
+                    snapshot[i] = samples.get(i);
+                }
+                Arrays.sort(snapshot);
+                sorted = snapshot;
+                sortedAt = recorded;
+            }
+            int index = (int) Math.ceil(percentile * snapshot.length) - 1;
+            return snapshot[Math.max(0, Math.min(index, snapshot.length - 1))];
+        }
+    }
+}
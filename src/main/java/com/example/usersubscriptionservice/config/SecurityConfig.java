@@ -1,7 +1,9 @@
 package com.example.usersubscriptionservice.config;
 
 import com.example.usersubscriptionservice.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -10,6 +12,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -19,13 +23,22 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // The request was authorized before it went async (streaming export); the token is not re-read on dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/user-subscriptions/send-reminders").permitAll()
                         .requestMatchers("/actuator/health").permitAll()
+                        // Scraped without a token, but only on the internal management port
+                        .requestMatchers(new AndRequestMatcher(
+                                AntPathRequestMatcher.antMatcher("/actuator/prometheus"),
+                                request -> request.getLocalPort() == managementPort)).permitAll()
                         .requestMatchers("/api/user-subscriptions/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,34 @@
+package com.example.usersubscriptionservice.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Async request handling, used by the streaming export. The executors in {@link ExecutorConfig} make
+ * Boot skip its {@code applicationTaskExecutor}, which MVC would otherwise use; without this it falls
+ * back to an unbounded thread per request.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    @Qualifier("streamingResponseExecutor")
+    private AsyncTaskExecutor streamingResponseExecutor;
+
+    // Exports of the whole table take minutes; the servlet container default is 30 seconds
+    @Value("${exports.timeout:1h}")
+    private Duration asyncTimeout;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingResponseExecutor);
+        configurer.setDefaultTimeout(asyncTimeout.toMillis());
+    }
+}
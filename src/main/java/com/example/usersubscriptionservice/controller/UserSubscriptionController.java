@@ -1,23 +1,41 @@
 package com.example.usersubscriptionservice.controller;
 
+import com.example.usersubscriptionservice.dto.BillingRolloverReport;
+import com.example.usersubscriptionservice.dto.CursorPage;
+import com.example.usersubscriptionservice.dto.ImportReport;
 import com.example.usersubscriptionservice.dto.MonthlyCostSummary;
+import com.example.usersubscriptionservice.dto.SearchMatch;
 import com.example.usersubscriptionservice.dto.UserSubscriptionRequest;
 import com.example.usersubscriptionservice.dto.UserSubscriptionResponse;
+import com.example.usersubscriptionservice.exception.InvalidImportException;
+import com.example.usersubscriptionservice.exception.ReminderRunInProgressException;
+import com.example.usersubscriptionservice.service.BillingCycleRolloverService;
+import com.example.usersubscriptionservice.service.NotificationOutboxService;
+import com.example.usersubscriptionservice.service.UserCostAggregateService;
+import com.example.usersubscriptionservice.service.UserProfileCache;
+import com.example.usersubscriptionservice.service.UserSubscriptionExportService;
+import com.example.usersubscriptionservice.service.UserSubscriptionImportService;
 import com.example.usersubscriptionservice.service.UserSubscriptionService;
 import com.example.usersubscriptionservice.util.UserContextUtil;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,9 +50,30 @@ public class UserSubscriptionController {
     @Autowired
     private UserSubscriptionService userSubscriptionService;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private UserCostAggregateService userCostAggregateService;
+
+    @Autowired
+    private UserSubscriptionImportService userSubscriptionImportService;
+
+    @Autowired
+    private UserSubscriptionExportService userSubscriptionExportService;
+
+    @Autowired
+    private BillingCycleRolloverService billingCycleRolloverService;
+
     @Autowired
     private UserContextUtil userContextUtil;
 
+    @Value("${pagination.max-page-size:100}")
+    private int maxPageSize;
+
     // User endpoints
     @PostMapping
     public ResponseEntity<?> createUserSubscription(@Valid @RequestBody UserSubscriptionRequest request) {
@@ -184,15 +223,25 @@ public class UserSubscriptionController {
     }
 
     // Admin endpoints
+    // Pass cursor (empty for the first page) to switch to keyset pagination; page is then ignored
     @GetMapping("/admin/all")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> getAllUserSubscriptions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
 
         try {
+            size = pageSize(size);
+            if (cursor != null) {
+                CursorPage<UserSubscriptionResponse> subscriptions = userSubscriptionService.getAllUserSubscriptions(
+                        cursor, size, sortBy, !sortDir.equalsIgnoreCase("desc"), includeTotal);
+                return ResponseEntity.ok(cursorPageResponse(subscriptions));
+            }
+
             Sort sort = sortDir.equalsIgnoreCase("desc") ?
                     Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
@@ -248,12 +297,25 @@ public class UserSubscriptionController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> searchUserSubscriptions(
             @RequestParam String searchTerm,
+            @RequestParam(defaultValue = "contains") String match,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
 
         try {
+            size = pageSize(size);
+            if (cursor != null) {
+                CursorPage<UserSubscriptionResponse> subscriptions = userSubscriptionService.searchUserSubscriptions(
+                        searchTerm, SearchMatch.from(match), cursor, size, includeTotal);
+                Map<String, Object> response = cursorPageResponse(subscriptions);
+                response.put("searchTerm", searchTerm);
+                return ResponseEntity.ok(response);
+            }
+
             Pageable pageable = PageRequest.of(page, size);
-            Page<UserSubscriptionResponse> subscriptions = userSubscriptionService.searchUserSubscriptions(searchTerm, pageable);
+            Page<UserSubscriptionResponse> subscriptions = userSubscriptionService.searchUserSubscriptions(
+                    searchTerm, SearchMatch.from(match), pageable);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -287,6 +349,14 @@ public class UserSubscriptionController {
             response.put("message", "Billing reminders sent successfully");
 
             return ResponseEntity.ok(response);
+        } catch (ReminderRunInProgressException e) {
+            logger.info("Billing reminders not started: {}", e.getMessage());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             logger.error("Failed to send billing reminders", e);
 
@@ -310,6 +380,14 @@ public class UserSubscriptionController {
             response.put("message", "Billing reminders sent successfully");
 
             return ResponseEntity.ok(response);
+        } catch (ReminderRunInProgressException e) {
+            logger.info("Billing reminders not started: {}", e.getMessage());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             logger.error("Failed to send billing reminders", e);
 
@@ -323,10 +401,10 @@ public class UserSubscriptionController {
 
     @GetMapping("/admin/statistics")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getSubscriptionStatistics() {
+    public ResponseEntity<?> getSubscriptionStatistics(@RequestParam(defaultValue = "false") boolean refresh) {
         try {
             logger.info("Admin get subscription statistics request received");
-            Map<String, Object> statistics = userSubscriptionService.getSubscriptionStatistics();
+            Map<String, Object> statistics = userSubscriptionService.getSubscriptionStatistics(refresh);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -343,4 +421,202 @@ public class UserSubscriptionController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
+
+    // Called by user-service when a profile changes so notifications never use outdated details
+    @DeleteMapping("/admin/cache/users/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> evictUserProfile(@PathVariable String username) {
+        logger.info("Evict cached user profile request received for: {}", username);
+        userProfileCache.invalidate(username);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "User profile evicted from cache");
+        response.put("username", username);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/admin/outbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getOutboxStatus() {
+        try {
+            logger.info("Admin get outbox status request received");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("pending", notificationOutboxService.countPending());
+            response.put("dead", notificationOutboxService.countDead());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to get outbox status", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/admin/outbox/requeue-dead")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> requeueDeadNotifications() {
+        try {
+            logger.info("Admin requeue dead notifications request received");
+            int requeued = notificationOutboxService.requeueDead();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Dead notifications requeued");
+            response.put("requeued", requeued);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to requeue dead notifications", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // Streams every row as NDJSON or CSV while it is read; errors after the first bytes can only abort the download
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUserSubscriptions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean activeOnly,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        logger.info("Admin export user subscriptions request received: format={}, activeOnly={}, gzip={}",
+                format, activeOnly, gzip);
+
+        boolean csv = UserSubscriptionExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        String exportFormat = csv ? UserSubscriptionExportService.FORMAT_CSV : UserSubscriptionExportService.FORMAT_NDJSON;
+        String filename = "user-subscriptions." + exportFormat + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+
+        StreamingResponseBody body = out -> {
+            try {
+                userSubscriptionExportService.export(out, exportFormat, activeOnly, gzip);
+            } catch (IOException e) {
+                logger.warn("User subscription export aborted: {}", e.getMessage());
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // Body is NDJSON (one UserSubscriptionImportRow per line) or CSV with a header line
+    @PostMapping(value = "/admin/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUserSubscriptions(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(defaultValue = "false") boolean notify,
+            InputStream body) {
+        try {
+            String format = contentType.startsWith("text/csv")
+                    ? UserSubscriptionImportService.FORMAT_CSV
+                    : UserSubscriptionImportService.FORMAT_NDJSON;
+            logger.info("Admin import user subscriptions request received: format={}, notify={}", format, notify);
+            ImportReport report = userSubscriptionImportService.importSubscriptions(body, format, notify);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Imported " + report.getImported() + " of " + report.getTotal() + " rows");
+            response.put("report", report);
+
+            return ResponseEntity.ok(response);
+        } catch (InvalidImportException e) {
+            logger.warn("Rejected user subscription import: {}", e.getMessage());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            // Database or downstream failures, not a problem with the file
+            logger.error("Failed to import user subscriptions", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to import user subscriptions: " + e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/admin/billing/rollover")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rolloverBillingDates() {
+        try {
+            logger.info("Admin billing date rollover request received");
+            BillingRolloverReport report = billingCycleRolloverService.rollover();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Advanced next billing date of " + report.getRows() + " subscriptions");
+            response.put("report", report);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to advance billing dates", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/admin/aggregates/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reconcileCostAggregates() {
+        try {
+            logger.info("Admin reconcile cost aggregates request received");
+            int repaired = userCostAggregateService.reconcile();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Cost aggregates reconciled");
+            response.put("repaired", repaired);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Failed to reconcile cost aggregates", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // Clamps a requested page size to 1..pagination.max-page-size
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private Map<String, Object> cursorPageResponse(CursorPage<UserSubscriptionResponse> subscriptions) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("subscriptions", subscriptions.getContent());
+        response.put("nextCursor", subscriptions.getNextCursor());
+        response.put("hasNext", subscriptions.isHasNext());
+        if (subscriptions.getTotalItems() != null) {
+            response.put("totalItems", subscriptions.getTotalItems());
+        }
+        return response;
+    }
 }
\ No newline at end of file
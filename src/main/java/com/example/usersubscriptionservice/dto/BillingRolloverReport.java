@@ -0,0 +1,25 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class BillingRolloverReport {
+    private LocalDate billingDate;  // rows billed before this date were advanced
+    private long rows;
+    private int chunks;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    public BillingRolloverReport() {
+    }
+
+    public BillingRolloverReport(LocalDate billingDate, long rows, int chunks, long elapsedMillis) {
+        this.billingDate = billingDate;
+        this.rows = rows;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis > 0 ? Math.round(rows * 100000.0 / elapsedMillis) / 100.0 : rows;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalItems; // only filled in when explicitly requested
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> content, String nextCursor, boolean hasNext, Long totalItems) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.totalItems = totalItems;
+    }
+}
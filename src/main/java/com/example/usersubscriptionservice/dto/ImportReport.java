@@ -0,0 +1,31 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImportReport {
+    private int total;
+    private int imported;
+    private int skipped;  // duplicates and rows that are already active
+    private int failed;   // invalid rows, unknown subscriptions and failed inserts
+    private int notificationsQueued;
+    private List<ImportRowResult> rows;
+
+    public ImportReport() {
+    }
+
+    public ImportReport(List<ImportRowResult> rows, int notificationsQueued) {
+        this.rows = rows;
+        this.total = rows.size();
+        this.notificationsQueued = notificationsQueued;
+        for (ImportRowResult row : rows) {
+            switch (row.getStatus()) {
+                case ImportRowResult.STATUS_IMPORTED -> imported++;
+                case ImportRowResult.STATUS_DUPLICATE_IN_FILE, ImportRowResult.STATUS_ALREADY_ACTIVE -> skipped++;
+                default -> failed++;
+            }
+        }
+    }
+}
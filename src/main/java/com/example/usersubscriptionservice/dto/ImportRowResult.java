@@ -0,0 +1,32 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportRowResult {
+
+    public static final String STATUS_IMPORTED = "IMPORTED";
+    public static final String STATUS_INVALID = "INVALID";
+    public static final String STATUS_DUPLICATE_IN_FILE = "DUPLICATE_IN_FILE";
+    public static final String STATUS_ALREADY_ACTIVE = "ALREADY_ACTIVE";
+    public static final String STATUS_UNKNOWN_SUBSCRIPTION = "UNKNOWN_SUBSCRIPTION";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private int line;
+    private String username;
+    private Long subscriptionId;
+    private String status;
+    private Long userSubscriptionId;
+    private String message;
+
+    public ImportRowResult() {
+    }
+
+    public ImportRowResult(int line, String username, Long subscriptionId, String status, String message) {
+        this.line = line;
+        this.username = username;
+        this.subscriptionId = subscriptionId;
+        this.status = status;
+        this.message = message;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.usersubscriptionservice.dto;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 @Data
 public class MonthlyCostSummary {
@@ -10,6 +11,7 @@ public class MonthlyCostSummary {
     private String currency;
     private int activeSubscriptionCount;
     private BigDecimal averageCostPerSubscription;
+    private Map<String, BigDecimal> costByCurrency;
 
     // Constructors
     public MonthlyCostSummary() {
@@ -0,0 +1,30 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Unmanaged projection of the columns the billing reminder run needs
+@Data
+public class ReminderCandidate {
+    private Long id;
+    private String username;
+    private Long subscriptionId;
+    private LocalDate nextBillingDate;
+    private BigDecimal monthlyPrice;
+    private String currency;
+
+    public ReminderCandidate() {
+    }
+
+    public ReminderCandidate(Long id, String username, Long subscriptionId, LocalDate nextBillingDate,
+                             BigDecimal monthlyPrice, String currency) {
+        this.id = id;
+        this.username = username;
+        this.subscriptionId = subscriptionId;
+        this.nextBillingDate = nextBillingDate;
+        this.monthlyPrice = monthlyPrice;
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.usersubscriptionservice.dto;
+
+// How the admin search term is matched against usernames; numeric terms also match subscription IDs exactly
+public enum SearchMatch {
+    CONTAINS,
+    PREFIX,
+    EXACT;
+
+    public static SearchMatch from(String value) {
+        try {
+            return SearchMatch.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported search match mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+// Response body of subscription-service's GET /api/subscriptions/available/{id}
+@Data
+public class SubscriptionEnvelope {
+    private boolean success;
+    private String message;
+    private SubscriptionResponse subscription;
+
+    public SubscriptionEnvelope() {
+    }
+}
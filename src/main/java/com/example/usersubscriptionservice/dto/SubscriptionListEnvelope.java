@@ -0,0 +1,16 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Response body of subscription-service's GET /api/subscriptions/available/batch
+@Data
+public class SubscriptionListEnvelope {
+    private boolean success;
+    private String message;
+    private List<SubscriptionResponse> subscriptions;
+
+    public SubscriptionListEnvelope() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Immutable-by-convention snapshot of the admin statistics, computed once and served from memory
+@Data
+public class SubscriptionStatistics {
+    private long activeSubscriptions;
+    private long inactiveSubscriptions;
+    private BigDecimal totalMonthlyRevenue;
+    private long activeUsers;
+    private Instant generatedAt;
+
+    public SubscriptionStatistics() {
+    }
+
+    public SubscriptionStatistics(long activeSubscriptions, long inactiveSubscriptions,
+                                  BigDecimal totalMonthlyRevenue, long activeUsers, Instant generatedAt) {
+        this.activeSubscriptions = activeSubscriptions;
+        this.inactiveSubscriptions = inactiveSubscriptions;
+        this.totalMonthlyRevenue = totalMonthlyRevenue != null ? totalMonthlyRevenue : BigDecimal.ZERO;
+        this.activeUsers = activeUsers;
+        this.generatedAt = generatedAt;
+    }
+
+    public long getTotalSubscriptions() {
+        return activeSubscriptions + inactiveSubscriptions;
+    }
+
+    public BigDecimal getAverageRevenuePerUser() {
+        return activeUsers > 0
+                ? totalMonthlyRevenue.divide(BigDecimal.valueOf(activeUsers), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+
+    public Map<String, Object> toMap(Instant now) {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("activeSubscriptions", activeSubscriptions);
+        statistics.put("inactiveSubscriptions", inactiveSubscriptions);
+        statistics.put("totalSubscriptions", getTotalSubscriptions());
+        statistics.put("totalMonthlyRevenue", totalMonthlyRevenue);
+        statistics.put("activeUsers", activeUsers);
+        statistics.put("averageRevenuePerUser", getAverageRevenuePerUser());
+        statistics.put("generatedAt", generatedAt.toString());
+        statistics.put("ageSeconds", Duration.between(generatedAt, now).toSeconds());
+        return statistics;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+// Response body of user-service's GET /api/users/{username}
+@Data
+public class UserEnvelope {
+    private boolean success;
+    private String message;
+    private UserResponse user;
+
+    public UserEnvelope() {
+    }
+}
@@ -3,7 +3,7 @@ package com.example.usersubscriptionservice.dto;
 import lombok.Data;
 
 @Data
-class UserResponse {
+public class UserResponse {
     private Long id;
     private String username;
     private String email;
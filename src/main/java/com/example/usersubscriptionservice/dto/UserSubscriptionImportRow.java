@@ -0,0 +1,18 @@
+package com.example.usersubscriptionservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// One line of a bulk import file; the owner is named explicitly since an admin imports for many users
+@Data
+public class UserSubscriptionImportRow {
+    private String username;
+    private Long subscriptionId;
+    private LocalDate startDate;
+    private LocalDate nextBillingDate;
+    private String notes;
+
+    public UserSubscriptionImportRow() {
+    }
+}
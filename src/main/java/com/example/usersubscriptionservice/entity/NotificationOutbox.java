@@ -0,0 +1,64 @@
+package com.example.usersubscriptionservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification email waiting to be sent to email-service. Rows are written in the same transaction
+ * as the subscription change and drained by the outbox dispatcher.
+ */
+@Entity
+@Data
+@Table(name = "notification_outbox")
+public class NotificationOutbox {
+
+    public static final String TYPE_SUBSCRIPTION_ADDED = "SUBSCRIPTION_ADDED";
+    public static final String TYPE_SUBSCRIPTION_UPDATED = "SUBSCRIPTION_UPDATED";
+    public static final String TYPE_SUBSCRIPTION_CANCELLED = "SUBSCRIPTION_CANCELLED";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_id")
+    @SequenceGenerator(name = "notification_outbox_id", sequenceName = "notification_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = STATUS_PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public NotificationOutbox() {}
+
+    public NotificationOutbox(String type, String payload) {
+        this.type = type;
+        this.payload = payload;
+        this.status = STATUS_PENDING;
+        this.attempts = 0;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
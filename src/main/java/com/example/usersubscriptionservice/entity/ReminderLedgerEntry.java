@@ -0,0 +1,41 @@
+package com.example.usersubscriptionservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A billing reminder that was sent for one billing cycle of a {@link UserSubscription}. Mapped so the
+ * reminder queries can anti-join on it; rows are written by
+ * {@link com.example.usersubscriptionservice.repository.ReminderLedgerRepository}.
+ */
+@Entity
+@Data
+@Table(name = "reminder_ledger")
+@IdClass(ReminderLedgerEntry.Key.class)
+public class ReminderLedgerEntry {
+
+    @Id
+    @Column(name = "user_subscription_id", nullable = false)
+    private Long userSubscriptionId;
+
+    @Id
+    @Column(name = "billing_date", nullable = false)
+    private LocalDate billingDate;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    public ReminderLedgerEntry() {}
+
+    @Data
+    public static class Key implements Serializable {
+        private Long userSubscriptionId;
+        private LocalDate billingDate;
+
+        public Key() {}
+    }
+}
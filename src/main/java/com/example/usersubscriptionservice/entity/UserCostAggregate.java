@@ -0,0 +1,47 @@
+package com.example.usersubscriptionservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals of a user's active subscriptions. Maintained in the same transaction as every
+ * change to {@link UserSubscription#getIsActive()} rows, so the monthly cost summary is a single
+ * primary-key lookup.
+ */
+@Entity
+@Data
+@Table(name = "user_cost_aggregates")
+public class UserCostAggregate {
+
+    @Id
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "total_monthly_cost", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalMonthlyCost = BigDecimal.ZERO;
+
+    @Column(name = "active_subscription_count", nullable = false)
+    private int activeSubscriptionCount;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "cost_by_currency", nullable = false, columnDefinition = "jsonb")
+    private Map<String, BigDecimal> costByCurrency = new HashMap<>();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public UserCostAggregate() {}
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
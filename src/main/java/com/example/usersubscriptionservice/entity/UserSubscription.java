@@ -16,8 +16,10 @@ import java.time.LocalDateTime;
 @Table(name = "user_subscriptions")
 public class UserSubscription {
 
+    // Sequence-based so Hibernate can batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_subscriptions_id")
+    @SequenceGenerator(name = "user_subscriptions_id", sequenceName = "user_subscriptions_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Username is required")
@@ -0,0 +1,13 @@
+package com.example.usersubscriptionservice.exception;
+
+// The import file as a whole cannot be accepted, e.g. it has too many rows; problems with single rows are reported per row instead
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+
+    public InvalidImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.usersubscriptionservice.exception;
+
+// Another billing reminder run holds the run on this or another instance; the expected outcome on all but one replica
+public class ReminderRunInProgressException extends RuntimeException {
+
+    public ReminderRunInProgressException(String message) {
+        super(message);
+    }
+}
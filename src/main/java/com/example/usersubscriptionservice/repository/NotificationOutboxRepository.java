@@ -0,0 +1,36 @@
+package com.example.usersubscriptionservice.repository;
+
+import com.example.usersubscriptionservice.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Rows locked by another dispatcher are skipped, so several instances can drain the outbox in parallel
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(String status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox n SET n.status = 'PENDING', n.attempts = 0, n.nextAttemptAt = :now " +
+            "WHERE n.status = 'DEAD'")
+    int requeueDead(@Param("now") LocalDateTime now);
+
+    // One bounded chunk of the retention purge, so each delete is a short transaction
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notification_outbox WHERE id IN (SELECT id FROM notification_outbox " +
+            "WHERE status = 'SENT' AND sent_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,29 @@
+package com.example.usersubscriptionservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Writes to {@code reminder_ledger}, the billing reminders already sent per subscription and billing
+ * date. Reads go through the anti-join in the reminder queries of {@link UserSubscriptionRepository}.
+ */
+@Repository
+public class ReminderLedgerRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Idempotent, so a row reminded again by an overlapping run does not fail
+    public void record(Long userSubscriptionId, LocalDate billingDate) {
+        jdbcTemplate.update("INSERT INTO reminder_ledger (user_subscription_id, billing_date, sent_at) " +
+                "VALUES (?, ?, localtimestamp) ON CONFLICT DO NOTHING", userSubscriptionId, billingDate);
+    }
+
+    // Cycles billed before the date can no longer be selected for a reminder
+    public int deleteBefore(LocalDate billingDate) {
+        return jdbcTemplate.update("DELETE FROM reminder_ledger WHERE billing_date < ?", billingDate);
+    }
+}
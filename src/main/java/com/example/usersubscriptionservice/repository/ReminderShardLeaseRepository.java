@@ -0,0 +1,66 @@
+package com.example.usersubscriptionservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Leases on the shards of a billing reminder run ({@code reminder_shard_leases}). Lease times are
+ * {@code timestamptz} values from the database clock ({@code now()}), so nodes with skewed clocks or
+ * different session time zones still agree on when a lease has expired.
+ */
+@Repository
+public class ReminderShardLeaseRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Idempotent; every node calls it before claiming
+    public void createShards(LocalDate runDate, int shardCount) {
+        jdbcTemplate.update("INSERT INTO reminder_shard_leases (run_date, shard) " +
+                "SELECT ?, shard FROM generate_series(0, ? - 1) AS shard ON CONFLICT DO NOTHING", runDate, shardCount);
+    }
+
+    /**
+     * Claims one shard that is neither completed nor leased by a live node, skipping rows another
+     * node is claiming at the same moment.
+     *
+     * @return the claimed shard, or empty when every shard of the run is completed or leased
+     */
+    public Optional<Integer> claimNext(LocalDate runDate, String owner, Duration lease) {
+        List<Integer> claimed = jdbcTemplate.queryForList("UPDATE reminder_shard_leases SET owner = ?, " +
+                        "locked_until = now() + ? * interval '1 second' " +
+                        "WHERE (run_date, shard) = (SELECT run_date, shard FROM reminder_shard_leases " +
+                        "WHERE run_date = ? AND completed_at IS NULL AND locked_until < now() " +
+                        "ORDER BY shard LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING shard",
+                Integer.class, owner, lease.toSeconds(), runDate);
+        return claimed.stream().findFirst();
+    }
+
+    /**
+     * Renews the lease on a shard this node is still working on.
+     *
+     * @return false if the lease was lost, e.g. it expired and another node claimed the shard
+     */
+    public boolean extend(LocalDate runDate, int shard, String owner, Duration lease) {
+        return jdbcTemplate.update("UPDATE reminder_shard_leases SET locked_until = now() + ? * interval '1 second' " +
+                "WHERE run_date = ? AND shard = ? AND owner = ? AND completed_at IS NULL",
+                lease.toSeconds(), runDate, shard, owner) == 1;
+    }
+
+    public void complete(LocalDate runDate, int shard, String owner) {
+        jdbcTemplate.update("UPDATE reminder_shard_leases SET completed_at = now() " +
+                "WHERE run_date = ? AND shard = ? AND owner = ?", runDate, shard, owner);
+    }
+
+    // Lets another node take the shard over right away, e.g. after this node failed on it
+    public void release(LocalDate runDate, int shard, String owner) {
+        jdbcTemplate.update("UPDATE reminder_shard_leases SET locked_until = '-infinity' " +
+                "WHERE run_date = ? AND shard = ? AND owner = ? AND completed_at IS NULL", runDate, shard, owner);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.usersubscriptionservice.repository;
+
+import java.math.BigDecimal;
+
+// Result of UserSubscriptionRepository#aggregateStatistics; sums over an empty table come back null
+public interface SubscriptionStatisticsRow {
+
+    Number getActiveSubscriptions();
+
+    Number getInactiveSubscriptions();
+
+    BigDecimal getTotalMonthlyRevenue();
+
+    Number getActiveUsers();
+}
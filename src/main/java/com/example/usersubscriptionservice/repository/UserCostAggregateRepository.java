@@ -0,0 +1,28 @@
+package com.example.usersubscriptionservice.repository;
+
+import com.example.usersubscriptionservice.entity.UserCostAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserCostAggregateRepository extends JpaRepository<UserCostAggregate, String> {
+
+    // Makes sure there is a row to lock, without failing when a concurrent transaction created it first;
+    // returns 1 if this call created it
+    @Modifying
+    @Query(value = "INSERT INTO user_cost_aggregates (username, total_monthly_cost, active_subscription_count, " +
+            "cost_by_currency, updated_at) VALUES (:username, 0, 0, CAST('{}' AS jsonb), now()) " +
+            "ON CONFLICT (username) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("username") String username);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM UserCostAggregate a WHERE a.username = :username")
+    Optional<UserCostAggregate> findForUpdate(@Param("username") String username);
+}
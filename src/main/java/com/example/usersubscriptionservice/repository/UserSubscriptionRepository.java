@@ -1,5 +1,6 @@
 package com.example.usersubscriptionservice.repository;
 
+import com.example.usersubscriptionservice.dto.ReminderCandidate;
 import com.example.usersubscriptionservice.entity.UserSubscription;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,13 +9,13 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserSubscriptionRepository extends JpaRepository<UserSubscription, Long> {
+public interface UserSubscriptionRepository extends JpaRepository<UserSubscription, Long>, UserSubscriptionRepositoryCustom {
 
     List<UserSubscription> findByUsernameAndIsActive(String username, Boolean isActive);
 
@@ -24,11 +25,20 @@ public interface UserSubscriptionRepository extends JpaRepository<UserSubscripti
 
     boolean existsByUsernameAndSubscriptionIdAndIsActive(String username, Long subscriptionId, Boolean isActive);
 
-    @Query("SELECT SUM(us.monthlyPrice) FROM UserSubscription us WHERE us.username = :username AND us.isActive = true")
-    BigDecimal calculateTotalMonthlyCostByUsername(@Param("username") String username);
+    // Per-currency totals of active subscriptions: [username, currency, sum(monthlyPrice), count]
+    @Query("SELECT us.username, us.currency, SUM(us.monthlyPrice), COUNT(us) FROM UserSubscription us " +
+            "WHERE us.isActive = true AND us.username IN :usernames GROUP BY us.username, us.currency")
+    List<Object[]> sumActiveCostByUsernameAndCurrency(@Param("usernames") Collection<String> usernames);
 
-    @Query("SELECT COUNT(us) FROM UserSubscription us WHERE us.username = :username AND us.isActive = true")
-    int countActiveSubscriptionsByUsername(@Param("username") String username);
+    // Which of the (username, subscriptionId) pairs, given as two parallel arrays, are already active: [username, subscription_id]
+    @Query(value = "SELECT us.username, us.subscription_id FROM user_subscriptions us " +
+            "JOIN unnest(CAST(:usernames AS varchar[]), CAST(:subscriptionIds AS bigint[])) AS candidate(username, subscription_id) " +
+            "ON us.username = candidate.username AND us.subscription_id = candidate.subscription_id " +
+            "WHERE us.is_active = true", nativeQuery = true)
+    List<Object[]> findActivePairs(@Param("usernames") String[] usernames, @Param("subscriptionIds") Long[] subscriptionIds);
+
+    @Query("SELECT DISTINCT us.username FROM UserSubscription us WHERE us.username > :after ORDER BY us.username")
+    List<String> findDistinctUsernamesAfter(@Param("after") String after, Pageable pageable);
 
     @Query("SELECT us FROM UserSubscription us WHERE us.nextBillingDate = :date AND us.isActive = true")
     List<UserSubscription> findByNextBillingDateAndIsActive(@Param("date") LocalDate date);
@@ -37,6 +47,40 @@ public interface UserSubscriptionRepository extends JpaRepository<UserSubscripti
     List<UserSubscription> findByNextBillingDateBetweenAndIsActive(@Param("startDate") LocalDate startDate,
                                                                    @Param("endDate") LocalDate endDate);
 
+    // Keyset-paged read of the rows due for a billing reminder and not yet reminded for that billing date, ordered by
+    // (username, id) so each user's rows are read together
+    @Query("SELECT new com.example.usersubscriptionservice.dto.ReminderCandidate(" +
+            "us.id, us.username, us.subscriptionId, us.nextBillingDate, us.monthlyPrice, us.currency) " +
+            "FROM UserSubscription us WHERE us.nextBillingDate BETWEEN :startDate AND :endDate " +
+            "AND us.isActive = true " +
+            "AND (us.username > :afterUsername OR (us.username = :afterUsername AND us.id > :afterId)) " +
+            "AND NOT EXISTS (SELECT 1 FROM ReminderLedgerEntry rl " +
+            "WHERE rl.userSubscriptionId = us.id AND rl.billingDate = us.nextBillingDate) " +
+            "ORDER BY us.username, us.id")
+    List<ReminderCandidate> findReminderCandidates(@Param("startDate") LocalDate startDate,
+                                                   @Param("endDate") LocalDate endDate,
+                                                   @Param("afterUsername") String afterUsername,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    // Same rows, restricted to the usernames whose hashtext() falls into the shard (0 <= shard < shardCount)
+    @Query("SELECT new com.example.usersubscriptionservice.dto.ReminderCandidate(" +
+            "us.id, us.username, us.subscriptionId, us.nextBillingDate, us.monthlyPrice, us.currency) " +
+            "FROM UserSubscription us WHERE us.nextBillingDate BETWEEN :startDate AND :endDate " +
+            "AND us.isActive = true " +
+            "AND (us.username > :afterUsername OR (us.username = :afterUsername AND us.id > :afterId)) " +
+            "AND NOT EXISTS (SELECT 1 FROM ReminderLedgerEntry rl " +
+            "WHERE rl.userSubscriptionId = us.id AND rl.billingDate = us.nextBillingDate) " +
+            "AND MOD(MOD(CAST(FUNCTION('hashtext', us.username) AS Integer), :shardCount) + :shardCount, :shardCount) = :shard " +
+            "ORDER BY us.username, us.id")
+    List<ReminderCandidate> findReminderCandidatesInShard(@Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate,
+                                                          @Param("afterUsername") String afterUsername,
+                                                          @Param("afterId") Long afterId,
+                                                          @Param("shardCount") int shardCount,
+                                                          @Param("shard") int shard,
+                                                          Pageable pageable);
+
     @Query("SELECT us FROM UserSubscription us WHERE us.username = :username AND us.subscriptionId = :subscriptionId AND us.isActive = true")
     Optional<UserSubscription> findActiveByUsernameAndSubscriptionId(@Param("username") String username,
                                                                      @Param("subscriptionId") Long subscriptionId);
@@ -44,18 +88,13 @@ public interface UserSubscriptionRepository extends JpaRepository<UserSubscripti
     // Admin functions
     Page<UserSubscription> findAll(Pageable pageable);
 
-    @Query("SELECT us FROM UserSubscription us WHERE us.username LIKE %:searchTerm% OR CAST(us.subscriptionId AS string) LIKE %:searchTerm%")
-    Page<UserSubscription> searchUserSubscriptions(@Param("searchTerm") String searchTerm, Pageable pageable);
-
-    @Query("SELECT COUNT(us) FROM UserSubscription us WHERE us.isActive = true")
-    Long countActiveSubscriptions();
-
-    @Query("SELECT COUNT(us) FROM UserSubscription us WHERE us.isActive = false")
-    Long countInactiveSubscriptions();
-
-    @Query("SELECT SUM(us.monthlyPrice) FROM UserSubscription us WHERE us.isActive = true")
-    BigDecimal getTotalMonthlyRevenue();
+    // Admin search lives in UserSubscriptionRepositoryCustom#search
 
-    @Query("SELECT COUNT(DISTINCT us.username) FROM UserSubscription us WHERE us.isActive = true")
-    Long countActiveUsers();
+    // All admin statistics in a single pass over the table
+    @Query("SELECT SUM(CASE WHEN us.isActive = true THEN 1 ELSE 0 END) AS activeSubscriptions, " +
+            "SUM(CASE WHEN us.isActive = false THEN 1 ELSE 0 END) AS inactiveSubscriptions, " +
+            "SUM(CASE WHEN us.isActive = true THEN us.monthlyPrice ELSE 0 END) AS totalMonthlyRevenue, " +
+            "COUNT(DISTINCT CASE WHEN us.isActive = true THEN us.username END) AS activeUsers " +
+            "FROM UserSubscription us")
+    SubscriptionStatisticsRow aggregateStatistics();
 }
\ No newline at end of file
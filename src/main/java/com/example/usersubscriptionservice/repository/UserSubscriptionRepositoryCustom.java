@@ -0,0 +1,25 @@
+package com.example.usersubscriptionservice.repository;
+
+import com.example.usersubscriptionservice.dto.SearchMatch;
+import com.example.usersubscriptionservice.entity.UserSubscription;
+import com.example.usersubscriptionservice.util.KeysetCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface UserSubscriptionRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} rows ordered by {@code sortBy} and then {@code id}, starting after
+     * the row the cursor points to (or from the beginning when {@code cursor} is null). A null
+     * {@code searchTerm} matches every row.
+     */
+    List<UserSubscription> findPageAfter(String searchTerm, SearchMatch match, String sortBy, boolean ascending,
+                                         KeysetCursor cursor, int limit);
+
+    long countMatching(String searchTerm, SearchMatch match);
+
+    // Offset-paged search; the count query is skipped when the page itself shows the total
+    Page<UserSubscription> search(String searchTerm, SearchMatch match, Pageable pageable);
+}
@@ -0,0 +1,141 @@
+package com.example.usersubscriptionservice.repository;
+
+import com.example.usersubscriptionservice.dto.SearchMatch;
+import com.example.usersubscriptionservice.entity.UserSubscription;
+import com.example.usersubscriptionservice.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserSubscriptionRepositoryImpl implements UserSubscriptionRepositoryCustom {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSubscription> findPageAfter(String searchTerm, SearchMatch match, String sortBy, boolean ascending,
+                                                KeysetCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSubscription> query = cb.createQuery(UserSubscription.class);
+        Root<UserSubscription> root = query.from(UserSubscription.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (searchTerm != null) {
+            predicates.add(searchPredicate(cb, root, searchTerm, match));
+        }
+        if (cursor != null) {
+            predicates.add(keysetPredicate(cb, root, cursor));
+        }
+
+        query.select(root).where(predicates.toArray(new Predicate[0]));
+        if ("id".equals(sortBy)) {
+            query.orderBy(ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        } else {
+            query.orderBy(
+                    ascending ? cb.asc(root.get(sortBy)) : cb.desc(root.get(sortBy)),
+                    ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countMatching(String searchTerm, SearchMatch match) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<UserSubscription> root = query.from(UserSubscription.class);
+
+        query.select(cb.count(root));
+        if (searchTerm != null) {
+            query.where(searchPredicate(cb, root, searchTerm, match));
+        }
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public Page<UserSubscription> search(String searchTerm, SearchMatch match, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSubscription> query = cb.createQuery(UserSubscription.class);
+        Root<UserSubscription> root = query.from(UserSubscription.class);
+
+        query.select(root)
+                .where(searchPredicate(cb, root, searchTerm, match))
+                .orderBy(QueryUtils.toOrders(pageable.getSortOr(Sort.by("id")), root, cb));
+
+        List<UserSubscription> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMatching(searchTerm, match));
+    }
+
+    /*
+     * Username matching is served by the trigram index on username (see V2__query_indexes.sql), which
+     * covers both the substring and the prefix patterns. A numeric term additionally matches the
+     * subscription ID exactly instead of casting every row to text.
+     */
+    private Predicate searchPredicate(CriteriaBuilder cb, Root<UserSubscription> root, String searchTerm, SearchMatch match) {
+        Path<String> username = root.get("username");
+        Predicate usernameMatches = switch (match) {
+            case EXACT -> cb.equal(username, searchTerm);
+            case PREFIX -> cb.like(username, escapeLike(searchTerm) + "%", LIKE_ESCAPE);
+            case CONTAINS -> cb.like(username, "%" + escapeLike(searchTerm) + "%", LIKE_ESCAPE);
+        };
+
+        Long subscriptionId = parseId(searchTerm);
+        if (subscriptionId == null) {
+            return usernameMatches;
+        }
+        return cb.or(usernameMatches, cb.equal(root.get("subscriptionId"), subscriptionId));
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static Long parseId(String term) {
+        if (term.isEmpty() || term.length() > 18 || !term.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return Long.valueOf(term);
+    }
+
+    // (sortKey, id) strictly beyond the cursor row in the requested direction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate keysetPredicate(CriteriaBuilder cb, Root<UserSubscription> root, KeysetCursor cursor) {
+        Path<Long> idPath = root.get("id");
+        Predicate idBeyond = cursor.isAscending()
+                ? cb.greaterThan(idPath, cursor.getLastId())
+                : cb.lessThan(idPath, cursor.getLastId());
+
+        if ("id".equals(cursor.getSortBy())) {
+            return idBeyond;
+        }
+
+        Path sortPath = root.get(cursor.getSortBy());
+        Comparable sortValue = cursor.getSortValue();
+        Predicate sortBeyond = cursor.isAscending()
+                ? cb.greaterThan(sortPath, sortValue)
+                : cb.lessThan(sortPath, sortValue);
+
+        return cb.or(sortBeyond, cb.and(cb.equal(sortPath, sortValue), idBeyond));
+    }
+}
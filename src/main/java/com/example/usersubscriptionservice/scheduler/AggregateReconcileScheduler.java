@@ -0,0 +1,32 @@
+package com.example.usersubscriptionservice.scheduler;
+
+import com.example.usersubscriptionservice.service.UserCostAggregateService;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AggregateReconcileScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregateReconcileScheduler.class);
+
+    @Autowired
+    private UserCostAggregateService userCostAggregateService;
+
+    // Run every day at 3:30 AM by default
+    // On one instance only
+    @Scheduled(cron = "${aggregates.reconcile-cron:0 30 3 * * ?}")
+    @SchedulerLock(name = "aggregate-reconcile", lockAtLeastFor = "PT5M")
+    public void reconcileCostAggregates() {
+        logger.info("Starting cost aggregate reconciliation job");
+        try {
+            int repaired = userCostAggregateService.reconcile();
+            logger.info("Cost aggregate reconciliation job completed, {} aggregates repaired", repaired);
+        } catch (Exception e) {
+            logger.error("Cost aggregate reconciliation job failed", e);
+        }
+    }
+}
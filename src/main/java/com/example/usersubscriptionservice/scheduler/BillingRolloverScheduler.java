@@ -0,0 +1,31 @@
+package com.example.usersubscriptionservice.scheduler;
+
+import com.example.usersubscriptionservice.service.BillingCycleRolloverService;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BillingRolloverScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingRolloverScheduler.class);
+
+    @Autowired
+    private BillingCycleRolloverService billingCycleRolloverService;
+
+    // Run every day at 0:15 AM by default, before the billing reminders; on one instance only
+    @Scheduled(cron = "${billing.rollover-cron:0 15 0 * * ?}")
+    @SchedulerLock(name = "billing-rollover", lockAtLeastFor = "PT5M")
+    public void rolloverBillingDates() {
+        logger.info("Starting billing date rollover job");
+        try {
+            billingCycleRolloverService.rollover();
+            logger.info("Billing date rollover job completed");
+        } catch (Exception e) {
+            logger.error("Billing date rollover job failed", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.usersubscriptionservice.scheduler;
+
+import com.example.usersubscriptionservice.service.NotificationOutboxService;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxDispatchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatchScheduler.class);
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    // Drains the outbox until a batch comes back short, then waits for the next tick
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval:2000}")
+    public void dispatchNotifications() {
+        try {
+            int claimed;
+            do {
+                claimed = notificationOutboxService.dispatchBatch();
+            } while (claimed >= batchSize);
+        } catch (Exception e) {
+            logger.error("Outbox dispatch failed", e);
+        }
+    }
+
+    // Run every day at 4:00 AM by default; on one instance only
+    @Scheduled(cron = "${outbox.purge-cron:0 0 4 * * ?}")
+    @SchedulerLock(name = "outbox-purge", lockAtLeastFor = "PT5M")
+    public void purgeSentNotifications() {
+        try {
+            notificationOutboxService.purgeSent();
+        } catch (Exception e) {
+            logger.error("Outbox purge failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.metrics-refresh-interval:30000}")
+    public void refreshQueueMetrics() {
+        try {
+            notificationOutboxService.refreshQueueMetrics();
+        } catch (Exception e) {
+            logger.warn("Failed to refresh outbox metrics: {}", e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.usersubscriptionservice.scheduler;
 
+import com.example.usersubscriptionservice.exception.ReminderRunInProgressException;
 import com.example.usersubscriptionservice.service.UserSubscriptionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,9 @@ public class ReminderScheduler {
         try {
             userSubscriptionService.sendUpcomingBillingReminders();
             logger.info("Daily billing reminders job completed successfully");
+        } catch (ReminderRunInProgressException e) {
+            // Every instance fires the job; all but the one holding the run end up here
+            logger.info("Daily billing reminders job skipped: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Daily billing reminders job failed", e);
         }
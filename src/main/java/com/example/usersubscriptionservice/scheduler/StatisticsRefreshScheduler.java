@@ -0,0 +1,27 @@
+package com.example.usersubscriptionservice.scheduler;
+
+import com.example.usersubscriptionservice.service.SubscriptionStatisticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StatisticsRefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsRefreshScheduler.class);
+
+    @Autowired
+    private SubscriptionStatisticsService subscriptionStatisticsService;
+
+    @Scheduled(fixedDelayString = "${statistics.refresh-interval:60000}")
+    public void refreshStatistics() {
+        try {
+            subscriptionStatisticsService.refresh();
+        } catch (Exception e) {
+            // The previous snapshot keeps being served; its age shows in the response
+            logger.error("Failed to refresh subscription statistics", e);
+        }
+    }
+}
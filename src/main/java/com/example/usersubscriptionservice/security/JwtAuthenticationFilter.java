@@ -41,43 +41,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String username = null;
+        JwtPrincipal principal = null;
         String jwt = null;
-        String role = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             jwt = authHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
-                role = jwtUtil.extractRole(jwt);
-                logger.debug("Extracted username: {} and role: {} from JWT", username, role);
+                // One verification covers signature, expiry and claims; repeat tokens hit the cache
+                principal = jwtUtil.verify(jwt);
+                logger.debug("Extracted username: {} and role: {} from JWT", principal.getUsername(), principal.getRole());
             } catch (Exception e) {
-                logger.warn("Failed to extract data from JWT: {}", e.getMessage());
+                logger.warn("JWT token validation failed: {}", e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                if (jwtUtil.validateToken(jwt, username)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(
-                                    username,
-                                    null,
-                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                            );
-
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
+        if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(
+                            principal.getUsername(),
+                            jwt, // forwarded by FeignConfig, also from threads without the request
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole()))
                     );
 
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.debug("Successfully authenticated user: {} with role: {}", username, role);
-                } else {
-                    logger.warn("JWT token validation failed for user: {}", username);
-                }
-            } catch (Exception e) {
-                logger.error("Error during JWT authentication for user: {} - Error: {}", username, e.getMessage());
-            }
+            authToken.setDetails(
+                    new WebAuthenticationDetailsSource().buildDetails(request)
+            );
+
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            logger.debug("Successfully authenticated user: {} with role: {}", principal.getUsername(), principal.getRole());
         }
 
         filterChain.doFilter(request, response);
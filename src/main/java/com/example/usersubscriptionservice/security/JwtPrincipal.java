@@ -0,0 +1,31 @@
+package com.example.usersubscriptionservice.security;
+
+import java.time.Instant;
+
+/**
+ * The claims of a verified access token that the service actually uses.
+ */
+public class JwtPrincipal {
+
+    private final String username;
+    private final String role;
+    private final Instant expiresAt;
+
+    public JwtPrincipal(String username, String role, Instant expiresAt) {
+        this.username = username;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.dto.BillingRolloverReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Moves {@code next_billing_date} of active subscriptions whose billing date has passed to their next
+ * billing date on or after today, by whole {@code billing_period}s (MONTHLY or YEARLY).
+ * <p>
+ * Rows are advanced in place by one UPDATE per chunk, without loading entities. Each chunk locks its
+ * rows with {@code FOR UPDATE SKIP LOCKED}, so instances running at the same time take different rows,
+ * and an advanced row no longer matches, so a rerun only picks up what is left. A row several periods
+ * behind is advanced in one step, counting the periods from its stored date, so a date on the 31st
+ * becomes the 30th or 31st of later months rather than drifting to the 28th.
+ */
+@Service
+public class BillingCycleRolloverService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingCycleRolloverService.class);
+
+    // k = whole periods between the stored date's month and today's month; one more if that is still before today
+    private static final String ROLLOVER_CHUNK = "WITH due AS (" +
+            "SELECT us.id, us.next_billing_date AS billed, t.today, " +
+            "CASE WHEN us.billing_period = 'YEARLY' THEN 12 ELSE 1 END AS period_months, " +
+            "(date_part('year', t.today) - date_part('year', us.next_billing_date)) * 12 " +
+            "+ date_part('month', t.today) - date_part('month', us.next_billing_date) AS elapsed_months " +
+            "FROM user_subscriptions us, (SELECT CAST(? AS date) AS today) t " +
+            "WHERE us.is_active = true AND us.next_billing_date < t.today " +
+            "LIMIT ? FOR UPDATE OF us SKIP LOCKED" +
+            "), periods AS (" +
+            "SELECT id, billed, today, period_months, CAST(ceil(elapsed_months / period_months) AS integer) AS k FROM due" +
+            ") " +
+            "UPDATE user_subscriptions us SET next_billing_date = CAST(CASE " +
+            "WHEN p.billed + make_interval(months => p.k * p.period_months) < p.today " +
+            "THEN p.billed + make_interval(months => (p.k + 1) * p.period_months) " +
+            "ELSE p.billed + make_interval(months => p.k * p.period_months) END AS date), " +
+            "updated_at = localtimestamp " +
+            "FROM periods p WHERE us.id = p.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${billing.rollover-chunk-size:1000}")
+    private int chunkSize;
+
+    private Counter rowsAdvanced;
+    private Timer runTimer;
+
+    @PostConstruct
+    public void init() {
+        rowsAdvanced = Counter.builder("billing.rollover.rows")
+                .description("Subscriptions whose next billing date was advanced")
+                .register(meterRegistry);
+        runTimer = Timer.builder("billing.rollover.run")
+                .description("Duration of billing date rollover runs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Advances every active subscription billed before today. Each chunk commits on its own, so a
+     * failed run keeps the chunks it finished.
+     */
+    public BillingRolloverReport rollover() {
+        return rollover(LocalDate.now());
+    }
+
+    // The run as it would happen on the given day
+    BillingRolloverReport rollover(LocalDate today) {
+        long start = System.currentTimeMillis();
+        logger.info("Advancing next billing dates before {}", today);
+
+        long rows = 0;
+        int chunks = 0;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int updated;
+            do {
+                updated = jdbcTemplate.update(ROLLOVER_CHUNK, today, chunkSize);
+                if (updated > 0) {
+                    rows += updated;
+                    chunks++;
+                    rowsAdvanced.increment(updated);
+                    logger.debug("Billing rollover progress: {} rows in {} chunks", rows, chunks);
+                }
+            } while (updated > 0);
+        } finally {
+            sample.stop(runTimer);
+        }
+
+        BillingRolloverReport report = new BillingRolloverReport(today, rows, chunks, System.currentTimeMillis() - start);
+        logger.info("Advanced next billing date of {} subscriptions in {} chunks in {} ms ({} rows/s)",
+                report.getRows(), report.getChunks(), report.getElapsedMillis(), report.getRowsPerSecond());
+        return report;
+    }
+}
@@ -0,0 +1,494 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.client.EmailServiceClient;
+import com.example.usersubscriptionservice.dto.ReminderCandidate;
+import com.example.usersubscriptionservice.dto.SubscriptionResponse;
+import com.example.usersubscriptionservice.dto.UserResponse;
+import com.example.usersubscriptionservice.exception.ReminderRunInProgressException;
+import com.example.usersubscriptionservice.repository.ReminderLedgerRepository;
+import com.example.usersubscriptionservice.repository.ReminderShardLeaseRepository;
+import com.example.usersubscriptionservice.repository.UserSubscriptionRepository;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Sends reminders for subscriptions billing in the next one to three days.
+ * <p>
+ * Due rows are read in keyset-paged chunks ordered by username so only one chunk is held in memory
+ * and a user's rows arrive together. For each chunk the distinct subscription IDs are resolved once,
+ * then each user is looked up and sent one digest of all their upcoming charges on the reminder worker
+ * pool. Calls to each downstream service are capped by their own semaphore.
+ * <p>
+ * Each sent reminder is recorded in the reminder ledger by subscription and billing date, and rows
+ * already in it are not selected again. A billing cycle is therefore reminded once, not on each of the
+ * three days it is due or on manual runs, and a run that stopped midway resumes with the rows it had
+ * not reached. Failed and skipped rows are not recorded and are tried again by the next run.
+ * <p>
+ * With several instances, a run is guarded by a ShedLock lock in the database, or, with
+ * {@code reminders.sharding.enabled}, split into {@code reminders.sharding.shards} shards by a hash of
+ * the username that the instances claim one at a time.
+ */
+@Service
+public class BillingReminderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingReminderService.class);
+
+    public static final String LOCK_NAME = "billing-reminders";
+
+    @Autowired
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private SubscriptionCatalogCache subscriptionCatalogCache;
+
+    @Autowired
+    private EmailServiceClient emailServiceClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LockProvider lockProvider;
+
+    @Autowired
+    private ReminderShardLeaseRepository reminderShardLeaseRepository;
+
+    @Autowired
+    private ReminderLedgerRepository reminderLedgerRepository;
+
+    @Autowired
+    @Qualifier("reminderWorkerExecutor")
+    private AsyncTaskExecutor reminderWorkerExecutor;
+
+    @Value("${reminders.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${reminders.concurrency.user-service:8}")
+    private int userServiceConcurrency;
+
+    @Value("${reminders.concurrency.subscription-service:4}")
+    private int subscriptionServiceConcurrency;
+
+    @Value("${reminders.concurrency.email-service:8}")
+    private int emailServiceConcurrency;
+
+    @Value("${reminders.digest.enabled:true}")
+    private boolean digestEnabled;
+
+    @Value("${reminders.lock.at-most-for:2h}")
+    private Duration lockAtMostFor;
+
+    @Value("${reminders.lock.at-least-for:5m}")
+    private Duration lockAtLeastFor;
+
+    @Value("${reminders.sharding.enabled:false}")
+    private boolean shardingEnabled;
+
+    @Value("${reminders.sharding.shards:16}")
+    private int shardCount;
+
+    @Value("${reminders.sharding.lease:30m}")
+    private Duration shardLease;
+
+    // Owner of the shard leases taken by this instance
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    // Flipped once email-service answers the digest endpoint with 404/405
+    private volatile boolean digestEndpointAvailable = true;
+
+    private Semaphore userServicePermits;
+    private Semaphore subscriptionServicePermits;
+    private Semaphore emailServicePermits;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ReminderRunProgress progress = new ReminderRunProgress();
+
+    private Counter remindersSent;
+    private Counter remindersSkipped;
+    private Counter remindersFailed;
+    private Timer runTimer;
+
+    @PostConstruct
+    public void init() {
+        userServicePermits = new Semaphore(userServiceConcurrency);
+        subscriptionServicePermits = new Semaphore(subscriptionServiceConcurrency);
+        emailServicePermits = new Semaphore(emailServiceConcurrency);
+
+        remindersSent = reminderCounter("sent");
+        remindersSkipped = reminderCounter("skipped");
+        remindersFailed = reminderCounter("failed");
+        runTimer = Timer.builder("reminders.run")
+                .description("Duration of billing reminder runs")
+                .register(meterRegistry);
+        Gauge.builder("reminders.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while a billing reminder run is in progress")
+                .register(meterRegistry);
+        registerPermitGauges("user-service", userServicePermits, userServiceConcurrency);
+        registerPermitGauges("subscription-service", subscriptionServicePermits, subscriptionServiceConcurrency);
+        registerPermitGauges("email-service", emailServicePermits, emailServiceConcurrency);
+    }
+
+    public ReminderRunProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Runs the reminders for today. Only one run at a time is allowed across all instances: by default
+     * the run holds the {@value #LOCK_NAME} lock; in sharded mode each instance claims shards of the
+     * due rows until none are left, so instances share the run instead of repeating it.
+     *
+     * @throws ReminderRunInProgressException if a run is already in progress on this or, unsharded,
+     *                                        another instance
+     */
+    public void sendUpcomingBillingReminders() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Billing reminder run already in progress, skipping");
+            throw new ReminderRunInProgressException("Billing reminders are already being sent");
+        }
+
+        try {
+            if (shardingEnabled) {
+                runReminders();
+                return;
+            }
+
+            // Released when the run ends, but held for at least lockAtLeastFor, so instances whose
+            // schedule fires a little later do not start the same run again
+            Optional<SimpleLock> lock = lockProvider.lock(
+                    new LockConfiguration(Instant.now(), LOCK_NAME, lockAtMostFor, lockAtLeastFor));
+            if (lock.isEmpty()) {
+                logger.debug("Billing reminder run is held by another instance, skipping");
+                throw new ReminderRunInProgressException("Billing reminders are already being sent by another instance");
+            }
+            try {
+                runReminders();
+            } finally {
+                lock.get().unlock();
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runReminders() {
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        LocalDate threeDaysLater = today.plusDays(3);
+        logger.info("Sending billing reminders for subscriptions billing between {} and {}", tomorrow, threeDaysLater);
+
+        int pruned = reminderLedgerRepository.deleteBefore(tomorrow);
+        logger.debug("Pruned {} reminder ledger entries billed before {}", pruned, tomorrow);
+
+        progress.start();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (shardingEnabled) {
+                sendShardedReminders(today, tomorrow, threeDaysLater);
+            } else {
+                sendReminders(today, tomorrow, threeDaysLater, null);
+            }
+        } finally {
+            sample.stop(runTimer);
+            progress.finish();
+        }
+
+        logger.info("Sent {} out of {} billing reminders successfully ({} skipped, {} failed, {}/s)",
+                progress.getSent(), progress.getScanned(), progress.getSkipped(), progress.getFailed(),
+                Math.round(progress.getThroughputPerSecond()));
+    }
+
+    // Claims shards of today's run until every shard is completed or leased by another instance
+    private void sendShardedReminders(LocalDate today, LocalDate tomorrow, LocalDate threeDaysLater) {
+        reminderShardLeaseRepository.createShards(today, shardCount);
+
+        Optional<Integer> shard;
+        while ((shard = reminderShardLeaseRepository.claimNext(today, instanceId, shardLease)).isPresent()) {
+            int claimed = shard.get();
+            logger.info("Claimed billing reminder shard {} of {} for {}", claimed, shardCount, today);
+            boolean finished;
+            try {
+                finished = sendReminders(today, tomorrow, threeDaysLater, claimed);
+            } catch (RuntimeException e) {
+                // Hand the shard to another instance instead of waiting for the lease to expire
+                reminderShardLeaseRepository.release(today, claimed, instanceId);
+                throw e;
+            }
+            if (finished) {
+                reminderShardLeaseRepository.complete(today, claimed, instanceId);
+            }
+        }
+    }
+
+    /**
+     * Sends all due rows, or only those whose username hashes to the given shard. The shard's lease is
+     * renewed after every chunk, so a long shard is not claimed by another instance while it still runs.
+     *
+     * @return false if the lease on the shard was lost and the rest of it was left to its new owner
+     */
+    private boolean sendReminders(LocalDate today, LocalDate tomorrow, LocalDate threeDaysLater, Integer shard) {
+        String lastUsername = "";
+        Long lastId = 0L;
+        while (true) {
+            List<ReminderCandidate> chunk = shard == null
+                    ? userSubscriptionRepository.findReminderCandidates(
+                            tomorrow, threeDaysLater, lastUsername, lastId, PageRequest.of(0, chunkSize))
+                    : userSubscriptionRepository.findReminderCandidatesInShard(
+                            tomorrow, threeDaysLater, lastUsername, lastId, shardCount, shard, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            // The last user's rows may continue in the next chunk; leave them to it so that user gets
+            // one digest. A user with more due rows than a whole chunk is sent in several.
+            if (chunk.size() == chunkSize) {
+                String tailUsername = chunk.get(chunk.size() - 1).getUsername();
+                int end = chunk.size();
+                while (end > 0 && chunk.get(end - 1).getUsername().equals(tailUsername)) {
+                    end--;
+                }
+                if (end > 0) {
+                    chunk = chunk.subList(0, end);
+                }
+            }
+
+            progress.chunkRead(chunk.size());
+            processChunk(chunk);
+            ReminderCandidate last = chunk.get(chunk.size() - 1);
+            lastUsername = last.getUsername();
+            lastId = last.getId();
+
+            if (shard != null && !reminderShardLeaseRepository.extend(today, shard, instanceId, shardLease)) {
+                logger.warn("Lost the lease on billing reminder shard {} for {}; leaving it to its new owner", shard, today);
+                return false;
+            }
+
+            logger.debug("Billing reminders progress: scanned={}, sent={}, failed={}",
+                    progress.getScanned(), progress.getSent(), progress.getFailed());
+        }
+        return true;
+    }
+
+    private void processChunk(List<ReminderCandidate> chunk) {
+        Set<Long> subscriptionIds = chunk.stream()
+                .map(ReminderCandidate::getSubscriptionId)
+                .collect(Collectors.toSet());
+
+        // Rows whose subscription is missing here are looked up again individually when sending
+        Map<Long, SubscriptionResponse> subscriptions;
+        try {
+            subscriptions = withPermit(subscriptionServicePermits, () -> subscriptionCatalogCache.getAll(subscriptionIds));
+        } catch (Exception e) {
+            logger.error("Failed to prefetch subscription details for reminder chunk", e);
+            subscriptions = Collections.emptyMap();
+        }
+
+        // Rows arrive ordered by username, so each user's rows are adjacent
+        Map<String, List<ReminderCandidate>> rowsByUser = chunk.stream()
+                .collect(Collectors.groupingBy(ReminderCandidate::getUsername, LinkedHashMap::new, Collectors.toList()));
+
+        Map<Long, SubscriptionResponse> prefetchedSubscriptions = subscriptions;
+        List<CompletableFuture<Void>> sends = new ArrayList<>(rowsByUser.size());
+        for (Map.Entry<String, List<ReminderCandidate>> entry : rowsByUser.entrySet()) {
+            String username = entry.getKey();
+            List<ReminderCandidate> rows = entry.getValue();
+            sends.add(CompletableFuture.supplyAsync(
+                            () -> withPermit(userServicePermits, () -> userProfileCache.get(username)), reminderWorkerExecutor)
+                    .thenAcceptAsync(user -> sendUserReminders(rows, user, prefetchedSubscriptions), reminderWorkerExecutor)
+                    .exceptionally(error -> {
+                        logger.error("Failed to send billing reminders for user: {}", username, error);
+                        failed(rows.size());
+                        return null;
+                    }));
+        }
+
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+    }
+
+    // One digest for the user's due rows, or one reminder per row if there is only one or digests are unavailable
+    private void sendUserReminders(List<ReminderCandidate> rows, UserResponse user,
+                                   Map<Long, SubscriptionResponse> subscriptions) {
+        if (user == null) {
+            logger.warn("User not found for billing reminder: {}", rows.get(0).getUsername());
+            skipped(rows.size());
+            return;
+        }
+
+        Map<Long, SubscriptionResponse> resolved = new HashMap<>();
+        for (ReminderCandidate candidate : rows) {
+            SubscriptionResponse subscription = subscriptions.get(candidate.getSubscriptionId());
+            if (subscription == null) {
+                subscription = withPermit(subscriptionServicePermits,
+                        () -> subscriptionCatalogCache.get(candidate.getSubscriptionId()));
+            }
+            resolved.put(candidate.getSubscriptionId(), subscription);
+        }
+
+        if (rows.size() > 1 && digestEnabled && digestEndpointAvailable) {
+            try {
+                sendReminderDigest(rows, user, resolved);
+                return;
+            } catch (FeignException.NotFound | FeignException.MethodNotAllowed e) {
+                logger.warn("email-service has no reminder digest endpoint, falling back to one reminder per subscription");
+                digestEndpointAvailable = false;
+            }
+        }
+
+        for (ReminderCandidate candidate : rows) {
+            try {
+                sendBillingReminder(candidate, user, resolved.get(candidate.getSubscriptionId()));
+            } catch (Exception e) {
+                logger.error("Failed to send billing reminder for subscription: {}", candidate.getId(), e);
+                failed(1);
+            }
+        }
+    }
+
+    private void sendReminderDigest(List<ReminderCandidate> rows, UserResponse user,
+                                    Map<Long, SubscriptionResponse> subscriptions) {
+        List<Map<String, Object>> reminders = new ArrayList<>(rows.size());
+        Map<String, BigDecimal> totals = new TreeMap<>();
+        for (ReminderCandidate candidate : rows) {
+            Map<String, Object> reminder = new HashMap<>();
+            reminder.put("subscriptionName", subscriptions.get(candidate.getSubscriptionId()).getName());
+            reminder.put("nextBillingDate", candidate.getNextBillingDate().toString());
+            reminder.put("amount", candidate.getMonthlyPrice().toString());
+            reminder.put("currency", candidate.getCurrency());
+            reminders.add(reminder);
+            totals.merge(candidate.getCurrency(), candidate.getMonthlyPrice(), BigDecimal::add);
+        }
+
+        Map<String, Object> emailRequest = new HashMap<>();
+        emailRequest.put("to", user.getEmail());
+        emailRequest.put("username", user.getFirstName() + " " + user.getLastName());
+        emailRequest.put("reminders", reminders);
+        Map<String, String> totalsByCurrency = new LinkedHashMap<>();
+        totals.forEach((currency, total) -> totalsByCurrency.put(currency, total.toString()));
+        emailRequest.put("totals", totalsByCurrency);
+
+        withPermit(emailServicePermits, () -> {
+            emailServiceClient.sendSubscriptionReminderDigest(emailRequest);
+            return null;
+        });
+        progress.emailSent();
+
+        for (ReminderCandidate candidate : rows) {
+            recordSent(candidate);
+        }
+        sent(rows.size());
+
+        logger.info("Sent billing reminder digest for user: {} with {} subscriptions", rows.get(0).getUsername(), rows.size());
+    }
+
+    private void sendBillingReminder(ReminderCandidate candidate, UserResponse user, SubscriptionResponse subscription) {
+        // Prepare email request
+        Map<String, Object> emailRequest = new HashMap<>();
+        emailRequest.put("to", user.getEmail());
+        emailRequest.put("username", user.getFirstName() + " " + user.getLastName());
+        emailRequest.put("subscriptionName", subscription.getName());
+        emailRequest.put("nextBillingDate", candidate.getNextBillingDate().toString());
+        emailRequest.put("amount", candidate.getMonthlyPrice().toString());
+        emailRequest.put("currency", candidate.getCurrency());
+
+        // Send email via Email Service
+        withPermit(emailServicePermits, () -> {
+            emailServiceClient.sendSubscriptionReminder(emailRequest);
+            return null;
+        });
+        progress.emailSent();
+
+        recordSent(candidate);
+        sent(1);
+
+        logger.info("Sent billing reminder for user: {}, subscription: {}",
+                candidate.getUsername(), subscription.getName());
+    }
+
+    // Recorded as soon as it is sent, so a run that stops here resends at most the emails in flight
+    private void recordSent(ReminderCandidate candidate) {
+        try {
+            reminderLedgerRepository.record(candidate.getId(), candidate.getNextBillingDate());
+        } catch (Exception e) {
+            // The email went out; failing the row would only send it again on the next run
+            logger.error("Failed to record billing reminder for subscription: {}", candidate.getId(), e);
+        }
+    }
+
+    private void sent(int rows) {
+        progress.sent(rows);
+        remindersSent.increment(rows);
+    }
+
+    private void skipped(int rows) {
+        progress.skipped(rows);
+        remindersSkipped.increment(rows);
+    }
+
+    private void failed(int rows) {
+        progress.failed(rows);
+        remindersFailed.increment(rows);
+    }
+
+    private Counter reminderCounter(String outcome) {
+        return Counter.builder("reminders.processed")
+                .description("Billing reminders processed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // How many reminder calls to each downstream service are in flight, and how many wait for a permit
+    private void registerPermitGauges(String service, Semaphore permits, int limit) {
+        Gauge.builder("reminders.downstream.in.flight", permits, semaphore -> limit - semaphore.availablePermits())
+                .tag("service", service)
+                .register(meterRegistry);
+        Gauge.builder("reminders.downstream.waiting", permits, Semaphore::getQueueLength)
+                .tag("service", service)
+                .register(meterRegistry);
+    }
+
+    private <T> T withPermit(Semaphore permits, Supplier<T> call) {
+        permits.acquireUninterruptibly();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.client.EmailServiceClient;
+import com.example.usersubscriptionservice.entity.NotificationOutbox;
+import com.example.usersubscriptionservice.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for notification emails.
+ * <p>
+ * {@link #enqueue} joins the caller's transaction, so a notification exists exactly when the
+ * subscription change commits. {@link #dispatchBatch} claims due rows, sends them without holding a
+ * database connection, and records the outcome; failed rows are retried with exponential backoff
+ * and marked {@code DEAD} after {@code outbox.max-attempts}. Rows not sent while the claim is still
+ * safely held are released, so another instance never sends a row this one is still sending.
+ * <p>
+ * Notifications are sent from a scheduler thread, without a caller's bearer token. Like the billing
+ * reminder job, this relies on email-service accepting unauthenticated calls from inside the cluster.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private EmailServiceClient emailServiceClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.initial-backoff:10s}")
+    private Duration initialBackoff;
+
+    @Value("${outbox.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    // A claimed row becomes due again after this long if the dispatcher dies before recording the outcome
+    @Value("${outbox.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    // The longest one send can take; no send is started later than this before the claim runs out
+    @Value("${spring.cloud.openfeign.client.config.email-service.connectTimeout:${spring.cloud.openfeign.client.config.default.connectTimeout:10000}}")
+    private long sendConnectTimeoutMillis;
+
+    @Value("${spring.cloud.openfeign.client.config.email-service.readTimeout:${spring.cloud.openfeign.client.config.default.readTimeout:60000}}")
+    private long sendReadTimeoutMillis;
+
+    private Duration sendTimeout;
+
+    // Sent rows are kept this long for troubleshooting, then purged
+    @Value("${outbox.retention:14d}")
+    private Duration retention;
+
+    @Value("${outbox.purge-batch-size:5000}")
+    private int purgeBatchSize;
+
+    // Backing the outbox.notifications gauges; refreshed on a schedule so scrapes never hit the database
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong deadCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        sendTimeout = Duration.ofMillis(sendConnectTimeoutMillis + sendReadTimeoutMillis);
+        if (claimTimeout.compareTo(sendTimeout.multipliedBy(2)) < 0) {
+            throw new IllegalStateException("outbox.claim-timeout (" + claimTimeout + ") must be at least twice the " +
+                    "email-service connect and read timeout (" + sendTimeout + ")");
+        }
+
+        Gauge.builder("outbox.notifications", pendingCount, AtomicLong::get)
+                .description("Notifications in the outbox, by status")
+                .tag("status", NotificationOutbox.STATUS_PENDING)
+                .register(meterRegistry);
+        Gauge.builder("outbox.notifications", deadCount, AtomicLong::get)
+                .description("Notifications in the outbox, by status")
+                .tag("status", NotificationOutbox.STATUS_DEAD)
+                .register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String type, Map<String, Object> emailRequest) {
+        try {
+            notificationOutboxRepository.save(new NotificationOutbox(type, objectMapper.writeValueAsString(emailRequest)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize notification", e);
+        }
+    }
+
+    /**
+     * Sends one batch of due notifications.
+     *
+     * @return the number of rows claimed, so callers can keep draining while full batches come back
+     */
+    public int dispatchBatch() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        LocalDateTime claimedAt = LocalDateTime.now();
+        List<NotificationOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = claimedAt;
+            List<NotificationOutbox> due = notificationOutboxRepository.lockDueBatch(now, batchSize);
+            for (NotificationOutbox notification : due) {
+                notification.setAttempts(notification.getAttempts() + 1);
+                notification.setNextAttemptAt(now.plus(claimTimeout));
+            }
+            return notificationOutboxRepository.saveAll(due);
+        });
+
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // Past this point a send could still be running when the claim expires and the row is claimed again
+        LocalDateTime sendDeadline = claimedAt.plus(claimTimeout).minus(sendTimeout);
+        int sent = 0;
+        int released = 0;
+        for (NotificationOutbox notification : batch) {
+            if (LocalDateTime.now().isAfter(sendDeadline)) {
+                // Not attempted; hand it back as it was claimed
+                notification.setAttempts(notification.getAttempts() - 1);
+                notification.setNextAttemptAt(LocalDateTime.now());
+                released++;
+                continue;
+            }
+            try {
+                send(notification);
+                notification.setStatus(NotificationOutbox.STATUS_SENT);
+                notification.setSentAt(LocalDateTime.now());
+                notification.setLastError(null);
+                sent++;
+                countDispatch(notification, "sent");
+            } catch (Exception e) {
+                recordFailure(notification, e);
+                countDispatch(notification, NotificationOutbox.STATUS_DEAD.equals(notification.getStatus()) ? "dead" : "retry");
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> notificationOutboxRepository.saveAll(batch));
+
+        if (released > 0) {
+            logger.warn("Released {} outbox notifications unsent; email-service is too slow to send {} within {}",
+                    released, batch.size(), claimTimeout);
+        }
+        logger.info("Dispatched {} out of {} outbox notifications", sent, batch.size() - released);
+        return batch.size();
+    }
+
+    public long countPending() {
+        return notificationOutboxRepository.countByStatus(NotificationOutbox.STATUS_PENDING);
+    }
+
+    public long countDead() {
+        return notificationOutboxRepository.countByStatus(NotificationOutbox.STATUS_DEAD);
+    }
+
+    public void refreshQueueMetrics() {
+        pendingCount.set(countPending());
+        deadCount.set(countDead());
+    }
+
+    public int requeueDead() {
+        int requeued = notificationOutboxRepository.requeueDead(LocalDateTime.now());
+        logger.info("Requeued {} dead outbox notifications", requeued);
+        return requeued;
+    }
+
+    /**
+     * Deletes sent notifications older than {@code outbox.retention} in chunks. Pending and dead rows
+     * are kept.
+     *
+     * @return the number of rows deleted
+     */
+    public long purgeSent() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = notificationOutboxRepository.deleteSentBefore(cutoff, purgeBatchSize);
+            purged += deleted;
+        } while (deleted >= purgeBatchSize);
+
+        logger.info("Purged {} outbox notifications sent before {}", purged, cutoff);
+        return purged;
+    }
+
+    private void send(NotificationOutbox notification) throws JsonProcessingException {
+        Map<String, Object> emailRequest = objectMapper.readValue(notification.getPayload(), PAYLOAD_TYPE);
+
+        switch (notification.getType()) {
+            case NotificationOutbox.TYPE_SUBSCRIPTION_ADDED ->
+                    emailServiceClient.sendSubscriptionAddedNotification(emailRequest);
+            case NotificationOutbox.TYPE_SUBSCRIPTION_UPDATED ->
+                    emailServiceClient.sendSubscriptionUpdatedNotification(emailRequest);
+            case NotificationOutbox.TYPE_SUBSCRIPTION_CANCELLED ->
+                    emailServiceClient.sendSubscriptionCancelledNotification(emailRequest);
+            default -> throw new IllegalStateException("Unknown notification type: " + notification.getType());
+        }
+    }
+
+    private void countDispatch(NotificationOutbox notification, String outcome) {
+        Counter.builder("outbox.notifications.dispatched")
+                .description("Outbox delivery attempts, by notification type and outcome")
+                .tags("type", notification.getType(), "outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void recordFailure(NotificationOutbox notification, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        notification.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+
+        if (notification.getAttempts() >= maxAttempts) {
+            notification.setStatus(NotificationOutbox.STATUS_DEAD);
+            logger.error("Outbox notification {} ({}) failed {} times, moving to dead letters: {}",
+                    notification.getId(), notification.getType(), notification.getAttempts(), error);
+            return;
+        }
+
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(notification.getAttempts() - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        notification.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+        logger.warn("Outbox notification {} ({}) failed on attempt {}, retrying in {}: {}",
+                notification.getId(), notification.getType(), notification.getAttempts(), backoff, error);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.usersubscriptionservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the current (or last finished) billing reminder run. Updated concurrently by the
+ * reminder workers and read by the {@code reminders} actuator endpoint.
+ */
+public class ReminderRunProgress {
+
+    private volatile boolean running;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // Email requests made for the sent rows; lower than sent when reminders go out as digests
+    private final AtomicLong emails = new AtomicLong();
+
+    void start() {
+        chunks.set(0);
+        scanned.set(0);
+        sent.set(0);
+        skipped.set(0);
+        failed.set(0);
+        emails.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+        running = true;
+    }
+
+    void finish() {
+        finishedAt = Instant.now();
+        running = false;
+    }
+
+    void chunkRead(int size) {
+        chunks.incrementAndGet();
+        scanned.addAndGet(size);
+    }
+
+    void sent(int rows) {
+        sent.addAndGet(rows);
+    }
+
+    void skipped(int rows) {
+        skipped.addAndGet(rows);
+    }
+
+    void failed(int rows) {
+        failed.addAndGet(rows);
+    }
+
+    void emailSent() {
+        emails.incrementAndGet();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getEmails() {
+        return emails.get();
+    }
+
+    public long getProcessed() {
+        return sent.get() + skipped.get() + failed.get();
+    }
+
+    public Duration getElapsed() {
+        if (startedAt == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+    }
+
+    public double getThroughputPerSecond() {
+        long millis = getElapsed().toMillis();
+        return millis > 0 ? getProcessed() * 1000.0 / millis : 0.0;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("running", running);
+        progress.put("startedAt", startedAt);
+        progress.put("finishedAt", finishedAt);
+        progress.put("elapsedSeconds", getElapsed().toSeconds());
+        progress.put("chunks", chunks.get());
+        progress.put("scanned", scanned.get());
+        progress.put("sent", sent.get());
+        progress.put("skipped", skipped.get());
+        progress.put("failed", failed.get());
+        progress.put("emails", emails.get());
+        progress.put("throughputPerSecond", Math.round(getThroughputPerSecond() * 100.0) / 100.0);
+        return progress;
+    }
+}
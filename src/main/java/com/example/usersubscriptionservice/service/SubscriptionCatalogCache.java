@@ -0,0 +1,259 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.client.SubscriptionServiceClient;
+import com.example.usersubscriptionservice.dto.SubscriptionEnvelope;
+import com.example.usersubscriptionservice.dto.SubscriptionListEnvelope;
+import com.example.usersubscriptionservice.dto.SubscriptionResponse;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * In-process cache of the subscription catalog, keyed by subscription ID.
+ * <p>
+ * Concurrent misses for the same ID share a single call to subscription-service, which is made on
+ * the calling thread so the request context is still available to Feign. Entries older than
+ * {@code refresh-after} are returned as-is while a reload runs in the background; if the reload
+ * fails the stale entry keeps being served until {@code expire-after}. While subscription-service
+ * rejects calls (open circuit breaker or full bulkhead) lookups are answered from the cache alone.
+ */
+@Component
+public class SubscriptionCatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionCatalogCache.class);
+
+    @Autowired
+    private SubscriptionServiceClient subscriptionServiceClient;
+
+    @Autowired
+    @Qualifier("downstreamLookupExecutor")
+    private AsyncTaskExecutor downstreamLookupExecutor;
+
+    @Autowired
+    @Qualifier("parallelLookupExecutor")
+    private AsyncTaskExecutor parallelLookupExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.subscription-catalog.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${cache.subscription-catalog.refresh-after:5m}")
+    private Duration refreshAfter;
+
+    @Value("${cache.subscription-catalog.expire-after:1h}")
+    private Duration expireAfter;
+
+    @Value("${cache.subscription-catalog.batch-endpoint-enabled:false}")
+    private boolean batchEndpointEnabled;
+
+    @Value("${cache.subscription-catalog.batch-size:100}")
+    private int batchSize;
+
+    @Value("${cache.subscription-catalog.fallback-parallelism:8}")
+    private int fallbackParallelism;
+
+    private AsyncLoadingCache<Long, SubscriptionResponse> cache;
+
+    // Carry the caller's authentication into refreshes and parallel lookups, so they send its token
+    private Executor lookupExecutor;
+    private Executor fallbackExecutor;
+
+    // Flipped when subscription-service turns out not to serve the batch endpoint
+    private volatile boolean batchEndpointAvailable;
+
+    // Set once a batch call succeeded; before that a 5xx is taken as a missing endpoint as well
+    private volatile boolean batchEndpointConfirmed;
+
+    @PostConstruct
+    public void init() {
+        batchEndpointAvailable = batchEndpointEnabled;
+        lookupExecutor = new DelegatingSecurityContextExecutor(downstreamLookupExecutor);
+        fallbackExecutor = new DelegatingSecurityContextExecutor(parallelLookupExecutor);
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .executor(lookupExecutor)
+                .recordStats()
+                .buildAsync(this::fetchSubscription);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "subscriptionCatalog");
+
+        logger.info("Subscription catalog cache initialized: maximumSize={}, refreshAfter={}, expireAfter={}",
+                maximumSize, refreshAfter, expireAfter);
+    }
+
+    public SubscriptionResponse get(Long subscriptionId) {
+        SubscriptionResponse subscription = getAll(List.of(subscriptionId)).get(subscriptionId);
+        if (subscription == null) {
+            throw new RuntimeException("Subscription not found");
+        }
+        return subscription;
+    }
+
+    /**
+     * Resolves all given IDs, loading the ones that are not cached with as few downstream calls as
+     * possible. IDs unknown to subscription-service are absent from the returned map.
+     */
+    public Map<Long, SubscriptionResponse> getAll(Collection<Long> subscriptionIds) {
+        if (subscriptionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            return cache.getAll(subscriptionIds, (missing, executor) -> {
+                try {
+                    return CompletableFuture.completedFuture(fetchSubscriptions(missing));
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            if (isRejected(e)) {
+                // subscription-service is shedding load or its breaker is open; serve what is cached, even if stale
+                logger.warn("subscription-service rejected the lookup ({}), serving cached subscriptions only",
+                        e.getCause().getClass().getSimpleName());
+                return cache.synchronous().getAllPresent(subscriptionIds);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(Long subscriptionId) {
+        cache.synchronous().invalidate(subscriptionId);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private static boolean isRejected(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CallNotPermittedException || cause instanceof BulkheadFullException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Long, SubscriptionResponse> fetchSubscriptions(Set<? extends Long> subscriptionIds) {
+        if (subscriptionIds.size() == 1) {
+            Long subscriptionId = subscriptionIds.iterator().next();
+            return Collections.singletonMap(subscriptionId, fetchSubscription(subscriptionId));
+        }
+
+        List<Long> ids = new ArrayList<>(subscriptionIds);
+        if (batchEndpointAvailable) {
+            try {
+                Map<Long, SubscriptionResponse> result = new HashMap<>();
+                for (int from = 0; from < ids.size(); from += batchSize) {
+                    result.putAll(fetchSubscriptionBatch(ids.subList(from, Math.min(from + batchSize, ids.size()))));
+                    batchEndpointConfirmed = true;
+                }
+                return result;
+            } catch (FeignException.NotFound | FeignException.MethodNotAllowed | FeignException.BadRequest e) {
+                // Versions without the batch endpoint route /available/batch to /available/{id} and fail
+                // to convert "batch" to an ID
+                logger.warn("subscription-service has no batch endpoint (HTTP {}), falling back to parallel single lookups",
+                        e.status());
+                batchEndpointAvailable = false;
+            } catch (FeignException.FeignServerException e) {
+                if (batchEndpointConfirmed) {
+                    throw e;
+                }
+                logger.warn("subscription-service failed the first batch call (HTTP {}), falling back to parallel " +
+                        "single lookups until restarted", e.status());
+                batchEndpointAvailable = false;
+            }
+        }
+
+        return fetchSubscriptionsInParallel(ids);
+    }
+
+    private Map<Long, SubscriptionResponse> fetchSubscriptionBatch(List<Long> subscriptionIds) {
+        logger.debug("Loading {} subscriptions from subscription-service in one batch", subscriptionIds.size());
+
+        SubscriptionListEnvelope response = subscriptionServiceClient.getSubscriptionsByIds(subscriptionIds);
+        if (response == null || !response.isSuccess()) {
+            throw new RuntimeException("Failed to load subscriptions");
+        }
+
+        Map<Long, SubscriptionResponse> result = new HashMap<>();
+        if (response.getSubscriptions() != null) {
+            for (SubscriptionResponse subscription : response.getSubscriptions()) {
+                result.put(subscription.getId(), subscription);
+            }
+        }
+        return result;
+    }
+
+    // At most fallbackParallelism lookups of one page are in flight at a time. The partitions run on the
+    // direct-handoff pool, or on this thread when it is busy, never queued behind the threads waiting here.
+    private Map<Long, SubscriptionResponse> fetchSubscriptionsInParallel(List<Long> subscriptionIds) {
+        int partitions = Math.min(fallbackParallelism, subscriptionIds.size());
+        List<CompletableFuture<Map<Long, SubscriptionResponse>>> futures = new ArrayList<>(partitions);
+
+        for (int partition = 0; partition < partitions; partition++) {
+            List<Long> partitionIds = new ArrayList<>();
+            for (int i = partition; i < subscriptionIds.size(); i += partitions) {
+                partitionIds.add(subscriptionIds.get(i));
+            }
+
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Map<Long, SubscriptionResponse> result = new HashMap<>();
+                for (Long subscriptionId : partitionIds) {
+                    result.put(subscriptionId, fetchSubscription(subscriptionId));
+                }
+                return result;
+            }, fallbackExecutor));
+        }
+
+        Map<Long, SubscriptionResponse> result = new HashMap<>();
+        for (CompletableFuture<Map<Long, SubscriptionResponse>> future : futures) {
+            result.putAll(future.join());
+        }
+        return result;
+    }
+
+    private SubscriptionResponse fetchSubscription(Long subscriptionId) {
+        logger.debug("Loading subscription {} from subscription-service", subscriptionId);
+
+        SubscriptionEnvelope response = subscriptionServiceClient.getSubscriptionById(subscriptionId);
+        if (response == null || !response.isSuccess() || response.getSubscription() == null) {
+            throw new RuntimeException("Subscription not found");
+        }
+
+        return response.getSubscription();
+    }
+}
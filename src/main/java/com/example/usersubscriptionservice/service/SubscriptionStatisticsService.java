@@ -0,0 +1,52 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.dto.SubscriptionStatistics;
+import com.example.usersubscriptionservice.repository.SubscriptionStatisticsRow;
+import com.example.usersubscriptionservice.repository.UserSubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Serves the admin statistics from an in-memory snapshot. The snapshot is recomputed with one
+ * aggregate query by {@code StatisticsRefreshScheduler}, so a dashboard refresh never touches the
+ * database; the response carries {@code generatedAt}/{@code ageSeconds} to show how stale it is.
+ */
+@Service
+public class SubscriptionStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionStatisticsService.class);
+
+    @Autowired
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    private volatile SubscriptionStatistics snapshot;
+
+    public SubscriptionStatistics getSnapshot() {
+        SubscriptionStatistics current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    public SubscriptionStatistics refresh() {
+        long start = System.nanoTime();
+        SubscriptionStatisticsRow row = userSubscriptionRepository.aggregateStatistics();
+
+        SubscriptionStatistics statistics = new SubscriptionStatistics(
+                toLong(row.getActiveSubscriptions()),
+                toLong(row.getInactiveSubscriptions()),
+                row.getTotalMonthlyRevenue(),
+                toLong(row.getActiveUsers()),
+                Instant.now());
+        snapshot = statistics;
+
+        logger.debug("Refreshed subscription statistics in {} ms", (System.nanoTime() - start) / 1_000_000);
+        return statistics;
+    }
+
+    private static long toLong(Number value) {
+        return value != null ? value.longValue() : 0L;
+    }
+}
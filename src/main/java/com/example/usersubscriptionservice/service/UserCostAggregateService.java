@@ -0,0 +1,212 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.entity.UserCostAggregate;
+import com.example.usersubscriptionservice.entity.UserSubscription;
+import com.example.usersubscriptionservice.repository.UserCostAggregateRepository;
+import com.example.usersubscriptionservice.repository.UserSubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains {@link UserCostAggregate} rows.
+ * <p>
+ * Every change is applied under a row lock on the user's aggregate inside the transaction that
+ * changes the subscription, so concurrent writes for one user serialize and never lose an update.
+ * {@link #reconcile()} recomputes the totals from {@code user_subscriptions} and repairs any drift.
+ */
+@Service
+public class UserCostAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCostAggregateService.class);
+
+    @Autowired
+    private UserCostAggregateRepository userCostAggregateRepository;
+
+    @Autowired
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${aggregates.reconcile-chunk-size:500}")
+    private int reconcileChunkSize;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subscriptionActivated(UserSubscription userSubscription) {
+        adjust(userSubscription, 1);
+    }
+
+    // Locks each user's aggregate once, in username order so concurrent imports cannot deadlock
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subscriptionsActivated(List<UserSubscription> userSubscriptions) {
+        Map<String, List<UserSubscription>> byUsername = userSubscriptions.stream()
+                .collect(Collectors.groupingBy(UserSubscription::getUsername, TreeMap::new, Collectors.toList()));
+        byUsername.forEach((username, rows) -> {
+            if (createFromSubscriptions(username)) {
+                return;
+            }
+            UserCostAggregate aggregate = lockAggregate(username);
+            rows.forEach(row -> apply(aggregate, row, 1));
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subscriptionDeactivated(UserSubscription userSubscription) {
+        adjust(userSubscription, -1);
+    }
+
+    // Falls back to computing the aggregate for users who have none yet
+    @Transactional
+    public UserCostAggregate getOrRebuild(String username) {
+        return userCostAggregateRepository.findById(username)
+                .orElseGet(() -> rebuild(username));
+    }
+
+    /**
+     * Compares every user's aggregate with the totals computed from {@code user_subscriptions} and
+     * rebuilds the ones that drifted.
+     *
+     * @return the number of aggregates that had to be repaired
+     */
+    public int reconcile() {
+        logger.info("Reconciling user cost aggregates");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int checked = 0;
+        int repaired = 0;
+        String lastUsername = "";
+
+        while (true) {
+            List<String> usernames = userSubscriptionRepository.findDistinctUsernamesAfter(
+                    lastUsername, PageRequest.of(0, reconcileChunkSize));
+            if (usernames.isEmpty()) {
+                break;
+            }
+
+            Map<String, UserCostAggregate> expected = computeAggregates(usernames);
+            Map<String, UserCostAggregate> actual = userCostAggregateRepository.findAllById(usernames).stream()
+                    .collect(Collectors.toMap(UserCostAggregate::getUsername, Function.identity()));
+
+            for (String username : usernames) {
+                UserCostAggregate computed = expected.getOrDefault(username, emptyAggregate(username));
+                if (!matches(computed, actual.get(username))) {
+                    logger.warn("Cost aggregate for user {} drifted, rebuilding", username);
+                    transactionTemplate.executeWithoutResult(status -> rebuild(username));
+                    repaired++;
+                }
+            }
+
+            checked += usernames.size();
+            lastUsername = usernames.get(usernames.size() - 1);
+        }
+
+        logger.info("Reconciled {} user cost aggregates, repaired {}", checked, repaired);
+        return repaired;
+    }
+
+    private void adjust(UserSubscription userSubscription, int direction) {
+        if (createFromSubscriptions(userSubscription.getUsername())) {
+            return;
+        }
+        apply(lockAggregate(userSubscription.getUsername()), userSubscription, direction);
+    }
+
+    /**
+     * Creates the user's aggregate from {@code user_subscriptions} if there is none yet, instead of
+     * starting from zero. The pending change is flushed before the query, so it is already counted and
+     * must not be applied again.
+     *
+     * @return whether the aggregate was created
+     */
+    private boolean createFromSubscriptions(String username) {
+        if (userCostAggregateRepository.insertIfAbsent(username) == 0) {
+            return false;
+        }
+        rebuild(username);
+        return true;
+    }
+
+    private void apply(UserCostAggregate aggregate, UserSubscription userSubscription, int direction) {
+        BigDecimal delta = direction > 0 ? userSubscription.getMonthlyPrice() : userSubscription.getMonthlyPrice().negate();
+
+        aggregate.setTotalMonthlyCost(aggregate.getTotalMonthlyCost().add(delta));
+        aggregate.setActiveSubscriptionCount(aggregate.getActiveSubscriptionCount() + direction);
+
+        Map<String, BigDecimal> costByCurrency = new HashMap<>(aggregate.getCostByCurrency());
+        BigDecimal currencyTotal = costByCurrency.getOrDefault(userSubscription.getCurrency(), BigDecimal.ZERO).add(delta);
+        if (currencyTotal.signum() == 0) {
+            costByCurrency.remove(userSubscription.getCurrency());
+        } else {
+            costByCurrency.put(userSubscription.getCurrency(), currencyTotal);
+        }
+        aggregate.setCostByCurrency(costByCurrency);
+    }
+
+    // Must run in a transaction; the aggregate stays locked until it ends
+    private UserCostAggregate rebuild(String username) {
+        UserCostAggregate aggregate = lockAggregate(username);
+        UserCostAggregate computed = computeAggregates(List.of(username)).getOrDefault(username, emptyAggregate(username));
+
+        aggregate.setTotalMonthlyCost(computed.getTotalMonthlyCost());
+        aggregate.setActiveSubscriptionCount(computed.getActiveSubscriptionCount());
+        aggregate.setCostByCurrency(computed.getCostByCurrency());
+        return aggregate;
+    }
+
+    private UserCostAggregate lockAggregate(String username) {
+        userCostAggregateRepository.insertIfAbsent(username);
+        return userCostAggregateRepository.findForUpdate(username)
+                .orElseThrow(() -> new IllegalStateException("Cost aggregate missing for user: " + username));
+    }
+
+    private Map<String, UserCostAggregate> computeAggregates(List<String> usernames) {
+        Map<String, UserCostAggregate> aggregates = new HashMap<>();
+        for (Object[] row : userSubscriptionRepository.sumActiveCostByUsernameAndCurrency(usernames)) {
+            String username = (String) row[0];
+            String currency = (String) row[1];
+            BigDecimal total = (BigDecimal) row[2];
+            int count = ((Number) row[3]).intValue();
+
+            UserCostAggregate aggregate = aggregates.computeIfAbsent(username, this::emptyAggregate);
+            aggregate.setTotalMonthlyCost(aggregate.getTotalMonthlyCost().add(total));
+            aggregate.setActiveSubscriptionCount(aggregate.getActiveSubscriptionCount() + count);
+            aggregate.getCostByCurrency().put(currency, total);
+        }
+        return aggregates;
+    }
+
+    private UserCostAggregate emptyAggregate(String username) {
+        UserCostAggregate aggregate = new UserCostAggregate();
+        aggregate.setUsername(username);
+        return aggregate;
+    }
+
+    private boolean matches(UserCostAggregate expected, UserCostAggregate actual) {
+        if (actual == null) {
+            return expected.getActiveSubscriptionCount() == 0;
+        }
+        if (expected.getActiveSubscriptionCount() != actual.getActiveSubscriptionCount()
+                || expected.getTotalMonthlyCost().compareTo(actual.getTotalMonthlyCost()) != 0
+                || !expected.getCostByCurrency().keySet().equals(actual.getCostByCurrency().keySet())) {
+            return false;
+        }
+        return expected.getCostByCurrency().entrySet().stream()
+                .allMatch(entry -> entry.getValue().compareTo(actual.getCostByCurrency().get(entry.getKey())) == 0);
+    }
+}
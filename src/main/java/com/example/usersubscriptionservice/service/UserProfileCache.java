@@ -0,0 +1,120 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.client.UserServiceClient;
+import com.example.usersubscriptionservice.dto.UserEnvelope;
+import com.example.usersubscriptionservice.dto.UserResponse;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Short-lived cache of user profiles from user-service, keyed by username.
+ * <p>
+ * Concurrent lookups for the same username share one downstream call. Unknown users are not cached.
+ * Profiles older than {@code refresh-after} are returned while a reload runs in the background; if
+ * user-service is down or its circuit breaker is open, the last known profile keeps being served
+ * until {@code expire-after}.
+ * Hit/miss counters are published as the {@code cache.*} metrics with {@code cache=userProfiles}.
+ */
+@Component
+public class UserProfileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileCache.class);
+
+    @Autowired
+    private UserServiceClient userServiceClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("downstreamLookupExecutor")
+    private AsyncTaskExecutor downstreamLookupExecutor;
+
+    @Value("${cache.user-profiles.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${cache.user-profiles.refresh-after:60s}")
+    private Duration refreshAfter;
+
+    @Value("${cache.user-profiles.expire-after:15m}")
+    private Duration expireAfter;
+
+    private AsyncLoadingCache<String, UserResponse> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                // Refreshes run as the user whose request triggered them
+                .executor(new DelegatingSecurityContextExecutor(downstreamLookupExecutor))
+                .recordStats()
+                .buildAsync(this::fetchUser);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "userProfiles");
+
+        logger.info("User profile cache initialized: maximumSize={}, refreshAfter={}, expireAfter={}",
+                maximumSize, refreshAfter, expireAfter);
+    }
+
+    /**
+     * Returns the user as reported by user-service, or {@code null} if user-service does not know the username.
+     */
+    public UserResponse get(String username) {
+        try {
+            return cache.getAll(List.of(username), (missing, executor) -> {
+                try {
+                    UserResponse user = fetchUser(username);
+                    return CompletableFuture.completedFuture(user != null
+                            ? Collections.singletonMap(username, user)
+                            : Collections.<String, UserResponse>emptyMap());
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join().get(username);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(String username) {
+        cache.synchronous().invalidate(username);
+        logger.info("Evicted cached profile for user: {}", username);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+        logger.info("Evicted all cached user profiles");
+    }
+
+    private UserResponse fetchUser(String username) {
+        logger.debug("Loading user {} from user-service", username);
+
+        UserEnvelope userResponse = userServiceClient.getUserByUsername(username);
+        if (userResponse == null || !userResponse.isSuccess()) {
+            return null;
+        }
+        return userResponse.getUser();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.usersubscriptionservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams {@code user_subscriptions} to an output stream as NDJSON or CSV.
+ * <p>
+ * Rows are read through a forward-only cursor ({@code exports.fetch-size} rows per round trip; the
+ * PostgreSQL driver only uses a cursor inside a transaction) and written one at a time, so memory use
+ * does not depend on the number of rows. Rows are exported as stored, without catalog details, and in
+ * no particular order: sorting the whole table would make the database materialize it first.
+ */
+@Service
+public class UserSubscriptionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSubscriptionExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String CSV_HEADER = "id,username,subscriptionId,startDate,nextBillingDate,monthlyPrice," +
+            "currency,billingPeriod,isActive,notes,createdAt,updatedAt\n";
+
+    private static final String EXPORT_QUERY = "SELECT id, username, subscription_id, start_date, next_billing_date, " +
+            "monthly_price, currency, billing_period, is_active, notes, created_at, updated_at FROM user_subscriptions";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${exports.fetch-size:1000}")
+    private int fetchSize;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Writes every row, or only the active ones, to {@code out}; the stream is closed when done.
+     *
+     * @return the number of rows written
+     */
+    public long export(OutputStream out, String format, boolean activeOnly, boolean gzip) throws IOException {
+        long start = System.currentTimeMillis();
+        String sql = activeOnly ? EXPORT_QUERY + " WHERE is_active = true" : EXPORT_QUERY;
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzip ? new GZIPOutputStream(out, 64 * 1024) : out, StandardCharsets.UTF_8), 64 * 1024);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+
+            // One object per line; the newline is written after each row
+            json.setRootValueSeparator(null);
+            if (FORMAT_CSV.equals(format)) {
+                writer.write(CSV_HEADER);
+            }
+
+            long[] rows = {0};
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, resultSet -> {
+                try {
+                    if (FORMAT_CSV.equals(format)) {
+                        writeCsv(writer, resultSet);
+                    } else {
+                        writeJson(json, resultSet);
+                    }
+                    // Hand each fetched batch to the client instead of letting it pile up in the buffers
+                    if (++rows[0] % fetchSize == 0) {
+                        json.flush();
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+
+            json.flush();
+            logger.info("Exported {} user subscriptions as {}{} in {} ms", rows[0], format, gzip ? " (gzip)" : "",
+                    System.currentTimeMillis() - start);
+            return rows[0];
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the query is abandoned with the transaction
+            throw e.getCause();
+        }
+    }
+
+    private void writeJson(JsonGenerator json, ResultSet resultSet) throws SQLException, IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", resultSet.getLong("id"));
+        json.writeStringField("username", resultSet.getString("username"));
+        json.writeNumberField("subscriptionId", resultSet.getLong("subscription_id"));
+        json.writeStringField("startDate", dateString(resultSet.getDate("start_date")));
+        json.writeStringField("nextBillingDate", dateString(resultSet.getDate("next_billing_date")));
+        json.writeNumberField("monthlyPrice", resultSet.getBigDecimal("monthly_price"));
+        json.writeStringField("currency", resultSet.getString("currency"));
+        json.writeStringField("billingPeriod", resultSet.getString("billing_period"));
+        json.writeBooleanField("isActive", resultSet.getBoolean("is_active"));
+        json.writeStringField("notes", resultSet.getString("notes"));
+        json.writeStringField("createdAt", timestampString(resultSet.getTimestamp("created_at")));
+        json.writeStringField("updatedAt", timestampString(resultSet.getTimestamp("updated_at")));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(Writer writer, ResultSet resultSet) throws SQLException, IOException {
+        writer.write(Long.toString(resultSet.getLong("id")));
+        writer.write(',');
+        writer.write(csvField(resultSet.getString("username")));
+        writer.write(',');
+        writer.write(Long.toString(resultSet.getLong("subscription_id")));
+        writer.write(',');
+        writer.write(orEmpty(dateString(resultSet.getDate("start_date"))));
+        writer.write(',');
+        writer.write(orEmpty(dateString(resultSet.getDate("next_billing_date"))));
+        writer.write(',');
+        writer.write(resultSet.getBigDecimal("monthly_price").toPlainString());
+        writer.write(',');
+        writer.write(csvField(resultSet.getString("currency")));
+        writer.write(',');
+        writer.write(csvField(resultSet.getString("billing_period")));
+        writer.write(',');
+        writer.write(Boolean.toString(resultSet.getBoolean("is_active")));
+        writer.write(',');
+        writer.write(csvField(resultSet.getString("notes")));
+        writer.write(',');
+        writer.write(orEmpty(timestampString(resultSet.getTimestamp("created_at"))));
+        writer.write(',');
+        writer.write(orEmpty(timestampString(resultSet.getTimestamp("updated_at"))));
+        writer.write('\n');
+    }
+
+    // Quotes fields containing separators, quotes or line breaks, doubling embedded quotes
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String dateString(Date date) {
+        return date != null ? date.toLocalDate().toString() : null;
+    }
+
+    private static String timestampString(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.dto.ImportReport;
+import com.example.usersubscriptionservice.dto.ImportRowResult;
+import com.example.usersubscriptionservice.dto.SubscriptionResponse;
+import com.example.usersubscriptionservice.dto.UserResponse;
+import com.example.usersubscriptionservice.dto.UserSubscriptionImportRow;
+import com.example.usersubscriptionservice.entity.UserSubscription;
+import com.example.usersubscriptionservice.exception.InvalidImportException;
+import com.example.usersubscriptionservice.repository.UserSubscriptionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Admin bulk import of user subscriptions from NDJSON or CSV.
+ * <p>
+ * Instead of repeating the single-row create for every line, the whole file is checked at once:
+ * duplicates within the file and pairs that are already active are found with one set-based query,
+ * and the catalog entries are resolved with batched lookups. Valid rows are then inserted in
+ * transactions of {@code imports.batch-size} rows; with sequence IDs Hibernate sends them as JDBC
+ * batches. Each row gets a result in the report.
+ * <p>
+ * Notification emails are off by default, since migrated customers already know their subscriptions.
+ * With {@code notify} they are queued in the outbox in the same transaction as the rows.
+ */
+@Service
+public class UserSubscriptionImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSubscriptionImportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    // Column lengths of user_subscriptions (V1); longer values would fail the whole insert batch
+    private static final int MAX_USERNAME_LENGTH = 255;
+    private static final int MAX_NOTES_LENGTH = 255;
+
+    @Autowired
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    @Autowired
+    private UserSubscriptionService userSubscriptionService;
+
+    @Autowired
+    private SubscriptionCatalogCache subscriptionCatalogCache;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private UserCostAggregateService userCostAggregateService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${imports.max-rows:10000}")
+    private int maxRows;
+
+    @Value("${imports.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Imports the file and reports the outcome of every row.
+     *
+     * @throws InvalidImportException if the file cannot be read or has more than {@code imports.max-rows} rows
+     */
+    public ImportReport importSubscriptions(InputStream body, String format, boolean notify) {
+        List<ParsedRow> rows;
+        try {
+            rows = parse(body, format);
+        } catch (IOException e) {
+            throw new InvalidImportException("Failed to read the import file: " + e.getMessage(), e);
+        }
+        logger.info("Importing {} user subscription rows ({}), notify={}", rows.size(), format, notify);
+
+        Map<Integer, ImportRowResult> results = new HashMap<>();
+        List<ParsedRow> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (ParsedRow parsed : rows) {
+            String error = parsed.error() != null ? parsed.error() : validate(parsed.row());
+            if (error != null) {
+                results.put(parsed.line(), result(parsed, ImportRowResult.STATUS_INVALID, error));
+            } else if (!seen.add(key(parsed.row().getUsername(), parsed.row().getSubscriptionId()))) {
+                results.put(parsed.line(), result(parsed, ImportRowResult.STATUS_DUPLICATE_IN_FILE,
+                        "Same user and subscription as an earlier line"));
+            } else {
+                candidates.add(parsed);
+            }
+        }
+
+        Set<String> alreadyActive = findAlreadyActive(candidates);
+        Map<Long, SubscriptionResponse> subscriptions = subscriptionCatalogCache.getAll(
+                candidates.stream().map(parsed -> parsed.row().getSubscriptionId()).collect(Collectors.toSet()));
+
+        List<ParsedRow> accepted = new ArrayList<>();
+        for (ParsedRow parsed : candidates) {
+            if (alreadyActive.contains(key(parsed.row().getUsername(), parsed.row().getSubscriptionId()))) {
+                results.put(parsed.line(), result(parsed, ImportRowResult.STATUS_ALREADY_ACTIVE,
+                        "User already has this subscription"));
+            } else if (!subscriptions.containsKey(parsed.row().getSubscriptionId())) {
+                results.put(parsed.line(), result(parsed, ImportRowResult.STATUS_UNKNOWN_SUBSCRIPTION,
+                        "Subscription details unavailable"));
+            } else {
+                accepted.add(parsed);
+            }
+        }
+
+        int notificationsQueued = 0;
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            List<ParsedRow> batch = accepted.subList(from, Math.min(from + batchSize, accepted.size()));
+            notificationsQueued += insertBatch(batch, subscriptions, notify, results);
+        }
+
+        List<ImportRowResult> ordered = new ArrayList<>(rows.size());
+        for (ParsedRow parsed : rows) {
+            ordered.add(results.get(parsed.line()));
+        }
+        ImportReport report = new ImportReport(ordered, notificationsQueued);
+        logger.info("Import finished: {} rows, {} imported, {} skipped, {} failed, {} notifications queued",
+                report.getTotal(), report.getImported(), report.getSkipped(), report.getFailed(), notificationsQueued);
+        return report;
+    }
+
+    // Inserts one batch in its own transaction; if it fails, only the rows of this batch are reported as failed
+    private int insertBatch(List<ParsedRow> batch, Map<Long, SubscriptionResponse> subscriptions, boolean notify,
+                            Map<Integer, ImportRowResult> results) {
+        // User profiles are only needed for the emails; resolved before the transaction so no connection is held meanwhile
+        Map<String, UserResponse> users = new HashMap<>();
+        if (notify) {
+            for (ParsedRow parsed : batch) {
+                users.computeIfAbsent(parsed.row().getUsername(), userProfileCache::get);
+            }
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            return transactionTemplate.execute(status -> {
+                List<UserSubscription> entities = new ArrayList<>(batch.size());
+                for (ParsedRow parsed : batch) {
+                    SubscriptionResponse subscription = subscriptions.get(parsed.row().getSubscriptionId());
+                    UserSubscription userSubscription = new UserSubscription(
+                            parsed.row().getUsername(),
+                            parsed.row().getSubscriptionId(),
+                            parsed.row().getStartDate(),
+                            parsed.row().getNextBillingDate(),
+                            subscription.getPrice(),
+                            subscription.getCurrency(),
+                            subscription.getBillingPeriod()
+                    );
+                    userSubscription.setNotes(parsed.row().getNotes());
+                    entities.add(userSubscription);
+                }
+
+                userSubscriptionRepository.saveAll(entities);
+                userCostAggregateService.subscriptionsActivated(entities);
+
+                int queued = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    ParsedRow parsed = batch.get(i);
+                    UserSubscription saved = entities.get(i);
+                    ImportRowResult result = result(parsed, ImportRowResult.STATUS_IMPORTED, null);
+                    result.setUserSubscriptionId(saved.getId());
+
+                    UserResponse user = users.get(parsed.row().getUsername());
+                    if (user != null) {
+                        userSubscriptionService.sendSubscriptionAddedNotification(
+                                user, subscriptions.get(saved.getSubscriptionId()), saved);
+                        queued++;
+                    } else if (notify) {
+                        result.setMessage("User not found in user-service, no notification sent");
+                    }
+                    results.put(parsed.line(), result);
+                }
+
+                // Send the batched inserts now and detach the rows, so a large import does not accumulate them
+                entityManager.flush();
+                entityManager.clear();
+                return queued;
+            });
+        } catch (Exception e) {
+            logger.error("Failed to import batch of {} rows, lines {} to {}", batch.size(), batch.get(0).line(),
+                    batch.get(batch.size() - 1).line(), e);
+            String message = "Batch of lines " + batch.get(0).line() + " to " + batch.get(batch.size() - 1).line() +
+                    " was not imported: " + e.getMessage();
+            for (ParsedRow parsed : batch) {
+                results.put(parsed.line(), result(parsed, ImportRowResult.STATUS_FAILED, message));
+            }
+            return 0;
+        }
+    }
+
+    // One query for the whole file instead of an exists check per row
+    private Set<String> findAlreadyActive(List<ParsedRow> candidates) {
+        Set<String> active = new HashSet<>();
+        if (candidates.isEmpty()) {
+            return active;
+        }
+        String[] usernames = new String[candidates.size()];
+        Long[] subscriptionIds = new Long[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            usernames[i] = candidates.get(i).row().getUsername();
+            subscriptionIds[i] = candidates.get(i).row().getSubscriptionId();
+        }
+        for (Object[] pair : userSubscriptionRepository.findActivePairs(usernames, subscriptionIds)) {
+            active.add(key((String) pair[0], ((Number) pair[1]).longValue()));
+        }
+        return active;
+    }
+
+    private List<ParsedRow> parse(InputStream body, String format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ParsedRow> rows = new ArrayList<>();
+        List<String> header = null;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (FORMAT_CSV.equals(format) && header == null) {
+                header = splitCsv(line).stream().map(UserSubscriptionImportService::normalizeColumn).toList();
+                continue;
+            }
+            if (rows.size() == maxRows) {
+                throw new InvalidImportException("Imports are limited to " + maxRows + " rows");
+            }
+            rows.add(FORMAT_CSV.equals(format) ? parseCsvRow(lineNumber, header, line) : parseJsonRow(lineNumber, line));
+        }
+        return rows;
+    }
+
+    private ParsedRow parseJsonRow(int lineNumber, String line) {
+        try {
+            return new ParsedRow(lineNumber, objectMapper.readValue(line, UserSubscriptionImportRow.class), null);
+        } catch (JsonProcessingException e) {
+            return new ParsedRow(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // Columns are matched by name, so their order is free: username, subscriptionId, startDate, nextBillingDate, notes
+    private ParsedRow parseCsvRow(int lineNumber, List<String> header, String line) {
+        List<String> values = splitCsv(line);
+        UserSubscriptionImportRow row = new UserSubscriptionImportRow();
+        try {
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                String value = values.get(i).isBlank() ? null : values.get(i).trim();
+                if (value == null) {
+                    continue;
+                }
+                switch (header.get(i)) {
+                    case "username" -> row.setUsername(value);
+                    case "subscriptionid" -> row.setSubscriptionId(Long.parseLong(value));
+                    case "startdate" -> row.setStartDate(LocalDate.parse(value));
+                    case "nextbillingdate" -> row.setNextBillingDate(LocalDate.parse(value));
+                    case "notes" -> row.setNotes(value);
+                    default -> {
+                        // Unknown columns are ignored
+                    }
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return new ParsedRow(lineNumber, row, "Malformed value: " + e.getMessage());
+        }
+        return new ParsedRow(lineNumber, row, null);
+    }
+
+    // RFC 4180 fields on a single line: commas inside double quotes, "" for a literal quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String normalizeColumn(String column) {
+        return column.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String validate(UserSubscriptionImportRow row) {
+        if (row.getUsername() == null || row.getUsername().isBlank()) {
+            return "Username is required";
+        }
+        if (row.getUsername().length() > MAX_USERNAME_LENGTH) {
+            return "Username is longer than " + MAX_USERNAME_LENGTH + " characters";
+        }
+        if (row.getSubscriptionId() == null) {
+            return "Subscription ID is required";
+        }
+        if (row.getStartDate() == null) {
+            return "Start date is required";
+        }
+        if (row.getNextBillingDate() == null) {
+            return "Next billing date is required";
+        }
+        if (row.getNotes() != null && row.getNotes().length() > MAX_NOTES_LENGTH) {
+            return "Notes are longer than " + MAX_NOTES_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static ImportRowResult result(ParsedRow parsed, String status, String message) {
+        UserSubscriptionImportRow row = parsed.row();
+        return new ImportRowResult(parsed.line(), row != null ? row.getUsername() : null,
+                row != null ? row.getSubscriptionId() : null, status, message);
+    }
+
+    private static String key(String username, Long subscriptionId) {
+        return username + '\u0000' + subscriptionId;
+    }
+
+    private record ParsedRow(int line, UserSubscriptionImportRow row, String error) {
+    }
+}
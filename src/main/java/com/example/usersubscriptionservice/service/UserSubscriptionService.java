@@ -1,31 +1,54 @@
 package com.example.usersubscriptionservice.service;
 
-import com.example.usersubscriptionservice.client.EmailServiceClient;
-import com.example.usersubscriptionservice.client.SubscriptionServiceClient;
-import com.example.usersubscriptionservice.client.UserServiceClient;
+import com.example.usersubscriptionservice.dto.CursorPage;
 import com.example.usersubscriptionservice.dto.MonthlyCostSummary;
+import com.example.usersubscriptionservice.dto.SearchMatch;
 import com.example.usersubscriptionservice.dto.SubscriptionResponse;
+import com.example.usersubscriptionservice.dto.SubscriptionStatistics;
+import com.example.usersubscriptionservice.dto.UserResponse;
 import com.example.usersubscriptionservice.dto.UserSubscriptionRequest;
 import com.example.usersubscriptionservice.dto.UserSubscriptionResponse;
+import com.example.usersubscriptionservice.entity.NotificationOutbox;
+import com.example.usersubscriptionservice.entity.UserCostAggregate;
 import com.example.usersubscriptionservice.entity.UserSubscription;
 import com.example.usersubscriptionservice.repository.UserSubscriptionRepository;
+import com.example.usersubscriptionservice.util.KeysetCursor;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "user.subscriptions.service", description = "Time spent in UserSubscriptionService, tagged by method")
 public class UserSubscriptionService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserSubscriptionService.class);
@@ -34,32 +57,60 @@ public class UserSubscriptionService {
     private UserSubscriptionRepository userSubscriptionRepository;
 
     @Autowired
-    private UserServiceClient userServiceClient;
+    private UserProfileCache userProfileCache;
 
     @Autowired
-    private SubscriptionServiceClient subscriptionServiceClient;
+    private SubscriptionCatalogCache subscriptionCatalogCache;
 
     @Autowired
-    private EmailServiceClient emailServiceClient;
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private BillingReminderService billingReminderService;
+
+    @Autowired
+    private UserCostAggregateService userCostAggregateService;
+
+    @Autowired
+    private SubscriptionStatisticsService subscriptionStatisticsService;
+
+    @Autowired
+    @Qualifier("parallelLookupExecutor")
+    private AsyncTaskExecutor parallelLookupExecutor;
+
+    // Upper bound on how long one request waits for its user-service and subscription-service lookups
+    @Value("${executors.downstream-lookup.request-budget:3s}")
+    private Duration lookupBudget;
+
+    // Carries the caller's authentication, and with it the bearer token, into the lookup threads
+    private AsyncTaskExecutor lookupExecutor;
+
+    @PostConstruct
+    public void init() {
+        lookupExecutor = new DelegatingSecurityContextAsyncTaskExecutor(parallelLookupExecutor);
+    }
 
     @Transactional
     public UserSubscriptionResponse createUserSubscription(String username, UserSubscriptionRequest request) {
         logger.info("Creating subscription for user: {}, subscription ID: {}", username, request.getSubscriptionId());
 
+        // Validate user exists and get subscription details while the database is checked
+        Instant deadline = Instant.now().plus(lookupBudget);
+        CompletableFuture<UserResponse> userLookup = lookupAsync(() -> validateUser(username), deadline);
+        CompletableFuture<SubscriptionResponse> subscriptionLookup =
+                lookupAsync(() -> getSubscriptionDetails(request.getSubscriptionId()), deadline);
+
         // Check if user already has this subscription
         if (userSubscriptionRepository.existsByUsernameAndSubscriptionIdAndIsActive(
                 username, request.getSubscriptionId(), true)) {
             logger.warn("User {} already has subscription {}", username, request.getSubscriptionId());
+            cancelAll(userLookup, subscriptionLookup);
             throw new RuntimeException("You already have this subscription");
         }
 
-        // Validate user exists
-        Map<String, Object> userResponse = validateUser(username);
-        @SuppressWarnings("unchecked")
-        Map<String, Object> user = (Map<String, Object>) userResponse.get("user");
-
-        // Get subscription details
-        SubscriptionResponse subscription = getSubscriptionDetails(request.getSubscriptionId());
+        awaitAll(userLookup, subscriptionLookup);
+        UserResponse user = userLookup.join();
+        SubscriptionResponse subscription = subscriptionLookup.join();
 
         // Create user subscription
         UserSubscription userSubscription = new UserSubscription(
@@ -75,14 +126,11 @@ public class UserSubscriptionService {
         userSubscription.setNotes(request.getNotes());
 
         UserSubscription savedSubscription = userSubscriptionRepository.save(userSubscription);
+        userCostAggregateService.subscriptionActivated(savedSubscription);
         logger.info("Successfully created user subscription with ID: {}", savedSubscription.getId());
 
-        // Send subscription added email notification
-        try {
-            sendSubscriptionAddedNotification(user, subscription, savedSubscription);
-        } catch (Exception e) {
-            logger.error("Failed to send subscription added notification: {}", e.getMessage());
-        }
+        // Queue subscription added email notification; it is sent once this transaction commits
+        sendSubscriptionAddedNotification(user, subscription, savedSubscription);
 
         return mapToResponse(savedSubscription, subscription);
     }
@@ -92,9 +140,7 @@ public class UserSubscriptionService {
 
         List<UserSubscription> userSubscriptions = userSubscriptionRepository.findByUsernameAndIsActive(username, true);
 
-        List<UserSubscriptionResponse> response = userSubscriptions.stream()
-                .map(this::mapToResponseWithSubscriptionDetails)
-                .collect(Collectors.toList());
+        List<UserSubscriptionResponse> response = mapToResponsesWithSubscriptionDetails(userSubscriptions);
 
         logger.debug("Retrieved {} user subscriptions for user: {}", response.size(), username);
 
@@ -117,14 +163,16 @@ public class UserSubscriptionService {
     public UserSubscriptionResponse updateUserSubscription(String username, Long id, UserSubscriptionRequest request) {
         logger.info("Updating user subscription: {} for user: {}", id, username);
 
-        UserSubscription userSubscription = userSubscriptionRepository.findByIdAndUsername(id, username)
-                .orElseThrow(() -> new RuntimeException("Subscription not found"));
+        // Get user and subscription details for email; the user lookup does not need the row
+        Instant deadline = Instant.now().plus(lookupBudget);
+        CompletableFuture<UserResponse> userLookup = lookupAsync(() -> validateUser(username), deadline);
+        UserSubscription userSubscription = findOwnedSubscription(username, id, userLookup);
+        CompletableFuture<SubscriptionResponse> subscriptionLookup =
+                lookupAsync(() -> getSubscriptionDetails(userSubscription.getSubscriptionId()), deadline);
 
-        // Get user and subscription details for email
-        Map<String, Object> userResponse = validateUser(username);
-        @SuppressWarnings("unchecked")
-        Map<String, Object> user = (Map<String, Object>) userResponse.get("user");
-        SubscriptionResponse subscription = getSubscriptionDetails(userSubscription.getSubscriptionId());
+        awaitAll(userLookup, subscriptionLookup);
+        UserResponse user = userLookup.join();
+        SubscriptionResponse subscription = subscriptionLookup.join();
 
         userSubscription.setStartDate(request.getStartDate());
         userSubscription.setNextBillingDate(request.getNextBillingDate());
@@ -133,51 +181,46 @@ public class UserSubscriptionService {
         UserSubscription updatedSubscription = userSubscriptionRepository.save(userSubscription);
         logger.info("Successfully updated user subscription: {}", id);
 
-        // Send subscription updated email notification
-        try {
-            sendSubscriptionUpdatedNotification(user, subscription, updatedSubscription);
-        } catch (Exception e) {
-            logger.error("Failed to send subscription updated notification: {}", e.getMessage());
-        }
+        // Queue subscription updated email notification; it is sent once this transaction commits
+        sendSubscriptionUpdatedNotification(user, subscription, updatedSubscription);
 
-        return mapToResponseWithSubscriptionDetails(updatedSubscription);
+        return mapToResponse(updatedSubscription, subscription);
     }
 
     @Transactional
     public void deleteUserSubscription(String username, Long id) {
         logger.info("Deleting user subscription: {} for user: {}", id, username);
 
-        UserSubscription userSubscription = userSubscriptionRepository.findByIdAndUsername(id, username)
-                .orElseThrow(() -> new RuntimeException("Subscription not found"));
+        // Get user and subscription details for email; the user lookup does not need the row
+        Instant deadline = Instant.now().plus(lookupBudget);
+        CompletableFuture<UserResponse> userLookup = lookupAsync(() -> validateUser(username), deadline);
+        UserSubscription userSubscription = findOwnedSubscription(username, id, userLookup);
+        CompletableFuture<SubscriptionResponse> subscriptionLookup =
+                lookupAsync(() -> getSubscriptionDetails(userSubscription.getSubscriptionId()), deadline);
 
-        // Get user and subscription details for email
-        Map<String, Object> userResponse = validateUser(username);
-        @SuppressWarnings("unchecked")
-        Map<String, Object> user = (Map<String, Object>) userResponse.get("user");
-        SubscriptionResponse subscription = getSubscriptionDetails(userSubscription.getSubscriptionId());
+        awaitAll(userLookup, subscriptionLookup);
+        UserResponse user = userLookup.join();
+        SubscriptionResponse subscription = subscriptionLookup.join();
 
+        boolean wasActive = Boolean.TRUE.equals(userSubscription.getIsActive());
         userSubscription.setIsActive(false);
         userSubscriptionRepository.save(userSubscription);
+        if (wasActive) {
+            userCostAggregateService.subscriptionDeactivated(userSubscription);
+        }
 
         logger.info("Successfully deleted user subscription: {}", id);
 
-        // Send subscription cancelled email notification
-        try {
-            sendSubscriptionCancelledNotification(user, subscription, userSubscription);
-        } catch (Exception e) {
-            logger.error("Failed to send subscription cancelled notification: {}", e.getMessage());
-        }
+        // Queue subscription cancelled email notification; it is sent once this transaction commits
+        sendSubscriptionCancelledNotification(user, subscription, userSubscription);
     }
 
     public MonthlyCostSummary getMonthlyCostSummary(String username) {
         logger.info("Calculating monthly cost summary for user: {}", username);
 
-        BigDecimal totalMonthlyCost = userSubscriptionRepository.calculateTotalMonthlyCostByUsername(username);
-        int activeSubscriptionCount = userSubscriptionRepository.countActiveSubscriptionsByUsername(username);
-
-        if (totalMonthlyCost == null) {
-            totalMonthlyCost = BigDecimal.ZERO;
-        }
+        UserCostAggregate aggregate = userCostAggregateService.getOrRebuild(username);
+        BigDecimal totalMonthlyCost = aggregate.getTotalMonthlyCost();
+        int activeSubscriptionCount = aggregate.getActiveSubscriptionCount();
 
         BigDecimal averageCostPerSubscription = activeSubscriptionCount > 0
                 ? totalMonthlyCost.divide(BigDecimal.valueOf(activeSubscriptionCount), 2, RoundingMode.HALF_UP)
@@ -185,6 +228,7 @@ public class UserSubscriptionService {
 
         MonthlyCostSummary summary = new MonthlyCostSummary(
                 totalMonthlyCost, "AZN", activeSubscriptionCount, averageCostPerSubscription);
+        summary.setCostByCurrency(aggregate.getCostByCurrency());
 
         logger.info("Monthly cost summary for {}: Total={}, Count={}", username, totalMonthlyCost, activeSubscriptionCount);
         return summary;
@@ -194,212 +238,231 @@ public class UserSubscriptionService {
     public Page<UserSubscriptionResponse> getAllUserSubscriptions(Pageable pageable) {
         logger.info("Getting all user subscriptions with pagination");
 
-        return userSubscriptionRepository.findAll(pageable)
-                .map(this::mapToResponseWithSubscriptionDetails);
+        Page<UserSubscription> userSubscriptions = userSubscriptionRepository.findAll(pageable);
+        return new PageImpl<>(mapToResponsesWithSubscriptionDetails(userSubscriptions.getContent()),
+                pageable, userSubscriptions.getTotalElements());
     }
 
-    public Page<UserSubscriptionResponse> searchUserSubscriptions(String searchTerm, Pageable pageable) {
-        logger.info("Searching user subscriptions with term: {}", searchTerm);
+    public Page<UserSubscriptionResponse> searchUserSubscriptions(String searchTerm, SearchMatch match, Pageable pageable) {
+        logger.info("Searching user subscriptions with term: {} ({})", searchTerm, match);
 
-        return userSubscriptionRepository.searchUserSubscriptions(searchTerm, pageable)
-                .map(this::mapToResponseWithSubscriptionDetails);
+        Page<UserSubscription> userSubscriptions = userSubscriptionRepository.search(searchTerm.trim(), match, pageable);
+        return new PageImpl<>(mapToResponsesWithSubscriptionDetails(userSubscriptions.getContent()),
+                pageable, userSubscriptions.getTotalElements());
     }
 
-    public Map<String, Object> getSubscriptionStatistics() {
-        logger.info("Getting subscription statistics");
+    // Keyset (cursor) variants of the admin listings; deep pages cost the same as the first one
+    public CursorPage<UserSubscriptionResponse> getAllUserSubscriptions(String cursor, int size, String sortBy,
+                                                                        boolean ascending, boolean includeTotal) {
+        logger.info("Getting all user subscriptions with cursor pagination");
+        return findCursorPage(null, null, cursor, size, sortBy, ascending, includeTotal);
+    }
+
+    public CursorPage<UserSubscriptionResponse> searchUserSubscriptions(String searchTerm, SearchMatch match, String cursor,
+                                                                        int size, boolean includeTotal) {
+        logger.info("Searching user subscriptions with term: {} ({}) using cursor pagination", searchTerm, match);
+        return findCursorPage(searchTerm.trim(), match, cursor, size, "id", true, includeTotal);
+    }
 
-        Map<String, Object> statistics = new HashMap<>();
+    public Map<String, Object> getSubscriptionStatistics(boolean refresh) {
+        logger.info("Getting subscription statistics");
 
         try {
-            Long activeSubscriptions = userSubscriptionRepository.countActiveSubscriptions();
-            Long inactiveSubscriptions = userSubscriptionRepository.countInactiveSubscriptions();
-            BigDecimal totalMonthlyRevenue = userSubscriptionRepository.getTotalMonthlyRevenue();
-            Long activeUsers = userSubscriptionRepository.countActiveUsers();
-
-            statistics.put("activeSubscriptions", activeSubscriptions != null ? activeSubscriptions : 0L);
-            statistics.put("inactiveSubscriptions", inactiveSubscriptions != null ? inactiveSubscriptions : 0L);
-            statistics.put("totalSubscriptions", (activeSubscriptions != null ? activeSubscriptions : 0L) +
-                    (inactiveSubscriptions != null ? inactiveSubscriptions : 0L));
-            statistics.put("totalMonthlyRevenue", totalMonthlyRevenue != null ? totalMonthlyRevenue : BigDecimal.ZERO);
-            statistics.put("activeUsers", activeUsers != null ? activeUsers : 0L);
-            statistics.put("averageRevenuePerUser",
-                    activeUsers != null && activeUsers > 0 && totalMonthlyRevenue != null
-                            ? totalMonthlyRevenue.divide(BigDecimal.valueOf(activeUsers), 2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO);
-
-            logger.info("Generated subscription statistics: Active={}, Total Revenue={}",
-                    activeSubscriptions, totalMonthlyRevenue);
+            SubscriptionStatistics statistics = refresh
+                    ? subscriptionStatisticsService.refresh()
+                    : subscriptionStatisticsService.getSnapshot();
+
+            logger.info("Returning subscription statistics from {}: Active={}, Total Revenue={}",
+                    statistics.getGeneratedAt(), statistics.getActiveSubscriptions(), statistics.getTotalMonthlyRevenue());
 
+            return statistics.toMap(Instant.now());
         } catch (Exception e) {
             logger.error("Failed to generate statistics", e);
             throw new RuntimeException("Failed to generate statistics");
         }
-
-        return statistics;
     }
 
     public void sendUpcomingBillingReminders() {
-        logger.info("Sending upcoming billing reminders");
-
-        LocalDate tomorrow = LocalDate.now().plusDays(1);
-        LocalDate threeDaysLater = LocalDate.now().plusDays(3);
+        billingReminderService.sendUpcomingBillingReminders();
+    }
 
-        List<UserSubscription> upcomingBillings = userSubscriptionRepository
-                .findByNextBillingDateBetweenAndIsActive(tomorrow, threeDaysLater);
+    // Email notification methods, written to the outbox in the caller's transaction.
+    // The added notification is package-private for UserSubscriptionImportService.
+    void sendSubscriptionAddedNotification(UserResponse user, SubscriptionResponse subscription, UserSubscription userSubscription) {
+        Map<String, Object> emailRequest = new HashMap<>();
+        emailRequest.put("to", user.getEmail());
+        emailRequest.put("username", user.getFirstName() + " " + user.getLastName());
+        emailRequest.put("subscriptionName", subscription.getName());
+        emailRequest.put("startDate", userSubscription.getStartDate().toString());
+        emailRequest.put("nextBillingDate", userSubscription.getNextBillingDate().toString());
+        emailRequest.put("amount", userSubscription.getMonthlyPrice().toString());
+        emailRequest.put("currency", userSubscription.getCurrency());
+        emailRequest.put("billingPeriod", userSubscription.getBillingPeriod());
+
+        notificationOutboxService.enqueue(NotificationOutbox.TYPE_SUBSCRIPTION_ADDED, emailRequest);
+        logger.info("Queued subscription added notification for user: {}, subscription: {}",
+                userSubscription.getUsername(), subscription.getName());
+    }
 
-        int successCount = 0;
-        for (UserSubscription userSubscription : upcomingBillings) {
-            try {
-                sendBillingReminder(userSubscription);
-                successCount++;
-            } catch (Exception e) {
-                logger.error("Failed to send billing reminder for subscription: {}", userSubscription.getId(), e);
-            }
-        }
+    private void sendSubscriptionUpdatedNotification(UserResponse user, SubscriptionResponse subscription, UserSubscription userSubscription) {
+        Map<String, Object> emailRequest = new HashMap<>();
+        emailRequest.put("to", user.getEmail());
+        emailRequest.put("username", user.getFirstName() + " " + user.getLastName());
+        emailRequest.put("subscriptionName", subscription.getName());
+        emailRequest.put("nextBillingDate", userSubscription.getNextBillingDate().toString());
+        emailRequest.put("amount", userSubscription.getMonthlyPrice().toString());
+        emailRequest.put("currency", userSubscription.getCurrency());
+        emailRequest.put("notes", userSubscription.getNotes());
+
+        notificationOutboxService.enqueue(NotificationOutbox.TYPE_SUBSCRIPTION_UPDATED, emailRequest);
+        logger.info("Queued subscription updated notification for user: {}, subscription: {}",
+                userSubscription.getUsername(), subscription.getName());
+    }
 
-        logger.info("Sent {} out of {} billing reminders successfully", successCount, upcomingBillings.size());
+    private void sendSubscriptionCancelledNotification(UserResponse user, SubscriptionResponse subscription, UserSubscription userSubscription) {
+        Map<String, Object> emailRequest = new HashMap<>();
+        emailRequest.put("to", user.getEmail());
+        emailRequest.put("username", user.getFirstName() + " " + user.getLastName());
+        emailRequest.put("subscriptionName", subscription.getName());
+        emailRequest.put("cancelledDate", LocalDate.now().toString());
+        emailRequest.put("savedAmount", userSubscription.getMonthlyPrice().toString());
+        emailRequest.put("currency", userSubscription.getCurrency());
+
+        notificationOutboxService.enqueue(NotificationOutbox.TYPE_SUBSCRIPTION_CANCELLED, emailRequest);
+        logger.info("Queued subscription cancelled notification for user: {}, subscription: {}",
+                userSubscription.getUsername(), subscription.getName());
     }
 
-    // Private email notification methods
-    private void sendSubscriptionAddedNotification(Map<String, Object> user, SubscriptionResponse subscription, UserSubscription userSubscription) {
+    private UserResponse validateUser(String username) {
         try {
-            Map<String, Object> emailRequest = new HashMap<>();
-            emailRequest.put("to", user.get("email"));
-            emailRequest.put("username", user.get("firstName") + " " + user.get("lastName"));
-            emailRequest.put("subscriptionName", subscription.getName());
-            emailRequest.put("startDate", userSubscription.getStartDate().toString());
-            emailRequest.put("nextBillingDate", userSubscription.getNextBillingDate().toString());
-            emailRequest.put("amount", userSubscription.getMonthlyPrice().toString());
-            emailRequest.put("currency", userSubscription.getCurrency());
-            emailRequest.put("billingPeriod", userSubscription.getBillingPeriod());
-
-            emailServiceClient.sendSubscriptionAddedNotification(emailRequest);
-            logger.info("Sent subscription added notification for user: {}, subscription: {}",
-                    userSubscription.getUsername(), subscription.getName());
+            UserResponse user = userProfileCache.get(username);
+            if (user == null) {
+                throw new RuntimeException("User not found");
+            }
+            return user;
         } catch (Exception e) {
-            logger.error("Failed to send subscription added notification: {}", e.getMessage());
-            throw e;
+            logger.error("Failed to validate user: {}", username, e);
+            throw new RuntimeException("Failed to validate user");
         }
     }
 
-    private void sendSubscriptionUpdatedNotification(Map<String, Object> user, SubscriptionResponse subscription, UserSubscription userSubscription) {
+    private SubscriptionResponse getSubscriptionDetails(Long subscriptionId) {
         try {
-            Map<String, Object> emailRequest = new HashMap<>();
-            emailRequest.put("to", user.get("email"));
-            emailRequest.put("username", user.get("firstName") + " " + user.get("lastName"));
-            emailRequest.put("subscriptionName", subscription.getName());
-            emailRequest.put("nextBillingDate", userSubscription.getNextBillingDate().toString());
-            emailRequest.put("amount", userSubscription.getMonthlyPrice().toString());
-            emailRequest.put("currency", userSubscription.getCurrency());
-            emailRequest.put("notes", userSubscription.getNotes());
-
-            emailServiceClient.sendSubscriptionUpdatedNotification(emailRequest);
-            logger.info("Sent subscription updated notification for user: {}, subscription: {}",
-                    userSubscription.getUsername(), subscription.getName());
+            return subscriptionCatalogCache.get(subscriptionId);
         } catch (Exception e) {
-            logger.error("Failed to send subscription updated notification: {}", e.getMessage());
-            throw e;
+            logger.error("Failed to get subscription details for ID: {}", subscriptionId, e);
+            throw new RuntimeException("Failed to get subscription details");
         }
     }
 
-    private void sendSubscriptionCancelledNotification(Map<String, Object> user, SubscriptionResponse subscription, UserSubscription userSubscription) {
-        try {
-            Map<String, Object> emailRequest = new HashMap<>();
-            emailRequest.put("to", user.get("email"));
-            emailRequest.put("username", user.get("firstName") + " " + user.get("lastName"));
-            emailRequest.put("subscriptionName", subscription.getName());
-            emailRequest.put("cancelledDate", LocalDate.now().toString());
-            emailRequest.put("savedAmount", userSubscription.getMonthlyPrice().toString());
-            emailRequest.put("currency", userSubscription.getCurrency());
-
-            emailServiceClient.sendSubscriptionCancelledNotification(emailRequest);
-            logger.info("Sent subscription cancelled notification for user: {}, subscription: {}",
-                    userSubscription.getUsername(), subscription.getName());
-        } catch (Exception e) {
-            logger.error("Failed to send subscription cancelled notification: {}", e.getMessage());
-            throw e;
-        }
+    private UserSubscription findOwnedSubscription(String username, Long id, CompletableFuture<?>... pendingLookups) {
+        return userSubscriptionRepository.findByIdAndUsername(id, username)
+                .orElseThrow(() -> {
+                    cancelAll(pendingLookups);
+                    return new RuntimeException("Subscription not found");
+                });
     }
 
-    private void sendBillingReminder(UserSubscription userSubscription) {
-        try {
-            // Get user details
-            Map<String, Object> userResponse = userServiceClient.getUserByUsername(userSubscription.getUsername());
-            if (userResponse == null || !(boolean) userResponse.get("success")) {
-                logger.warn("User not found for billing reminder: {}", userSubscription.getUsername());
-                return;
+    /**
+     * Starts a lookup on the lookup pool, or runs it on this thread when every pool thread is busy.
+     * If the returned future fails, times out or is cancelled before the lookup finishes, the thread
+     * running it is interrupted. That aborts a wait for a connection or a permit, and on virtual
+     * threads the socket read itself.
+     */
+    private <T> CompletableFuture<T> lookupAsync(Supplier<T> lookup, Instant deadline) {
+        long remainingMillis = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = lookupExecutor.submit(() -> {
+            try {
+                result.complete(lookup.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
             }
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result.orTimeout(remainingMillis, TimeUnit.MILLISECONDS);
+    }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> user = (Map<String, Object>) userResponse.get("user");
+    /**
+     * Waits for all lookups, failing as soon as the first one fails or the budget runs out. The
+     * remaining lookups are then cancelled, which interrupts the threads still running them.
+     */
+    private void awaitAll(CompletableFuture<?>... lookups) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(lookups);
+        for (CompletableFuture<?> lookup : lookups) {
+            lookup.whenComplete((result, error) -> {
+                if (error != null) {
+                    all.completeExceptionally(error);
+                }
+            });
+        }
 
-            // Get subscription details
-            SubscriptionResponse subscription = getSubscriptionDetails(userSubscription.getSubscriptionId());
+        try {
+            all.join();
+        } catch (CompletionException | CancellationException e) {
+            cancelAll(lookups);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                logger.error("Downstream lookups did not finish within {}", lookupBudget);
+                throw new RuntimeException("Timed out waiting for downstream services");
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
 
-            // Prepare email request
-            Map<String, Object> emailRequest = new HashMap<>();
-            emailRequest.put("to", user.get("email"));
-            emailRequest.put("username", user.get("firstName") + " " + user.get("lastName"));
-            emailRequest.put("subscriptionName", subscription.getName());
-            emailRequest.put("nextBillingDate", userSubscription.getNextBillingDate().toString());
-            emailRequest.put("amount", userSubscription.getMonthlyPrice().toString());
-            emailRequest.put("currency", userSubscription.getCurrency());
+    private void cancelAll(CompletableFuture<?>... lookups) {
+        for (CompletableFuture<?> lookup : lookups) {
+            lookup.cancel(true);
+        }
+    }
 
-            // Send email via Email Service
-            emailServiceClient.sendSubscriptionReminder(emailRequest);
+    private CursorPage<UserSubscriptionResponse> findCursorPage(String searchTerm, SearchMatch match, String cursor,
+                                                                int size, String sortBy, boolean ascending,
+                                                                boolean includeTotal) {
+        if (!KeysetCursor.isSortable(sortBy)) {
+            throw new RuntimeException("Cursor pagination is not supported for sort field: " + sortBy);
+        }
 
-            logger.info("Sent billing reminder for user: {}, subscription: {}",
-                    userSubscription.getUsername(), subscription.getName());
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor, sortBy, ascending);
 
-        } catch (Exception e) {
-            logger.error("Failed to send billing reminder for subscription: {}", userSubscription.getId(), e);
-            throw e;
+        // One extra row tells whether there is a next page without counting
+        List<UserSubscription> rows = userSubscriptionRepository.findPageAfter(searchTerm, match, sortBy, ascending, after, size + 1);
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
         }
-    }
 
-    private Map<String, Object> validateUser(String username) {
-        try {
-            Map<String, Object> userResponse = userServiceClient.getUserByUsername(username);
-            if (userResponse == null || !(boolean) userResponse.get("success")) {
-                throw new RuntimeException("User not found");
-            }
-            return userResponse;
-        } catch (Exception e) {
-            logger.error("Failed to validate user: {}", username, e);
-            throw new RuntimeException("Failed to validate user");
+        String nextCursor = null;
+        if (hasNext) {
+            UserSubscription last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(sortBy, ascending, sortValue(last, sortBy), last.getId()).encode();
         }
-    }
 
-    private SubscriptionResponse getSubscriptionDetails(Long subscriptionId) {
-        try {
-            Map<String, Object> response = subscriptionServiceClient.getSubscriptionById(subscriptionId);
-            if (response == null || !(boolean) response.get("success")) {
-                throw new RuntimeException("Subscription not found");
-            }
+        Long totalItems = includeTotal ? userSubscriptionRepository.countMatching(searchTerm, match) : null;
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> subscriptionData = (Map<String, Object>) response.get("subscription");
-
-            SubscriptionResponse subscription = new SubscriptionResponse();
-            subscription.setId(((Number) subscriptionData.get("id")).longValue());
-            subscription.setName((String) subscriptionData.get("name"));
-            subscription.setDescription((String) subscriptionData.get("description"));
-            subscription.setPrice(new BigDecimal(subscriptionData.get("price").toString()));
-            subscription.setCurrency((String) subscriptionData.get("currency"));
-            subscription.setCategory((String) subscriptionData.get("category"));
-            subscription.setBillingPeriod((String) subscriptionData.get("billingPeriod"));
-            subscription.setWebsiteUrl((String) subscriptionData.get("websiteUrl"));
-            subscription.setLogoUrl((String) subscriptionData.get("logoUrl"));
-            subscription.setIsActive((Boolean) subscriptionData.get("isActive"));
-
-            return subscription;
-        } catch (Exception e) {
-            logger.error("Failed to get subscription details for ID: {}", subscriptionId, e);
-            throw new RuntimeException("Failed to get subscription details");
-        }
+        return new CursorPage<>(mapToResponsesWithSubscriptionDetails(rows), nextCursor, hasNext, totalItems);
     }
 
-    private UserSubscriptionResponse mapToResponse(UserSubscription userSubscription, SubscriptionResponse subscription) {
+    private Comparable<?> sortValue(UserSubscription userSubscription, String sortBy) {
+        return switch (sortBy) {
+            case "username" -> userSubscription.getUsername();
+            case "subscriptionId" -> userSubscription.getSubscriptionId();
+            case "startDate" -> userSubscription.getStartDate();
+            case "nextBillingDate" -> userSubscription.getNextBillingDate();
+            case "monthlyPrice" -> userSubscription.getMonthlyPrice();
+            default -> userSubscription.getId();
+        };
+    }
+
+    // Package-private for UserSubscriptionMappingBenchmark
+    UserSubscriptionResponse mapToResponse(UserSubscription userSubscription, SubscriptionResponse subscription) {
         UserSubscriptionResponse response = new UserSubscriptionResponse();
         response.setId(userSubscription.getId());
         response.setUsername(userSubscription.getUsername());
@@ -422,4 +485,30 @@ public class UserSubscriptionService {
         SubscriptionResponse subscription = getSubscriptionDetails(userSubscription.getSubscriptionId());
         return mapToResponse(userSubscription, subscription);
     }
+
+    // Resolves the distinct subscription IDs of all rows in one catalog lookup instead of one call per row
+    private List<UserSubscriptionResponse> mapToResponsesWithSubscriptionDetails(List<UserSubscription> userSubscriptions) {
+        Set<Long> subscriptionIds = userSubscriptions.stream()
+                .map(UserSubscription::getSubscriptionId)
+                .collect(Collectors.toSet());
+
+        Map<Long, SubscriptionResponse> subscriptions;
+        try {
+            subscriptions = subscriptionCatalogCache.getAll(subscriptionIds);
+        } catch (Exception e) {
+            logger.error("Failed to get subscription details for IDs: {}", subscriptionIds, e);
+            throw new RuntimeException("Failed to get subscription details");
+        }
+
+        List<UserSubscriptionResponse> responses = new ArrayList<>(userSubscriptions.size());
+        for (UserSubscription userSubscription : userSubscriptions) {
+            SubscriptionResponse subscription = subscriptions.get(userSubscription.getSubscriptionId());
+            if (subscription == null) {
+                logger.error("Subscription details not found for ID: {}", userSubscription.getSubscriptionId());
+                throw new RuntimeException("Failed to get subscription details");
+            }
+            responses.add(mapToResponse(userSubscription, subscription));
+        }
+        return responses;
+    }
 }
\ No newline at end of file
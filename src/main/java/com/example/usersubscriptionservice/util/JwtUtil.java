@@ -1,12 +1,28 @@
 package com.example.usersubscriptionservice.util;
 
+import com.example.usersubscriptionservice.security.JwtPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.function.Function;
 
@@ -19,8 +35,84 @@ public class JwtUtil {
     @Value("${jwt.access-token.expiration}")
     private Long accessTokenExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.verified-cache.maximum-size:10000}")
+    private long verifiedCacheMaximumSize;
+
+    @Value("${jwt.verified-cache.max-ttl:15m}")
+    private Duration verifiedCacheMaxTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // The key and parser are immutable and thread-safe, so they are built once
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Keyed by the SHA-256 digest of the token so raw tokens are never kept in memory
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaximumSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+                        return timeToLive(principal).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return timeToLive(principal).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verifiedTokens");
+    }
+
+    /**
+     * Verifies the signature and expiry of the token once and returns its principal. Tokens that
+     * were verified recently are answered from the cache until their {@code exp}.
+     *
+     * @throws JwtException if the token is malformed, has an invalid signature, has no expiry or has expired
+     */
+    public JwtPrincipal verify(String token) {
+        String key = digest(token);
+        JwtPrincipal principal = verifiedTokens.getIfPresent(key);
+        if (principal != null) {
+            return principal;
+        }
+
+        Claims claims = extractAllClaims(token);
+        if (claims.getSubject() == null) {
+            throw new JwtException("Token has no subject");
+        }
+
+        // Tokens without exp were always refused; they must not become tokens that never expire
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            throw new JwtException("Token has no expiration");
+        }
+
+        principal = new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                expiration.toInstant()
+        );
+        verifiedTokens.put(key, principal);
+        return principal;
     }
 
     public String extractUsername(String token) {
@@ -37,9 +129,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -64,4 +154,21 @@ public class JwtUtil {
     public String extractRole(String token) {
         return extractClaim(token, claims -> claims.get("role", String.class));
     }
-}
\ No newline at end of file
+
+    private Duration timeToLive(JwtPrincipal principal) {
+        Duration untilExpiry = Duration.between(Instant.now(), principal.getExpiresAt());
+        if (untilExpiry.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilExpiry.compareTo(verifiedCacheMaxTtl) < 0 ? untilExpiry : verifiedCacheMaxTtl;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
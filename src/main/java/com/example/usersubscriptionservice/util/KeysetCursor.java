@@ -0,0 +1,76 @@
+package com.example.usersubscriptionservice.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort key and {@code id} of the last row of
+ * a page. The next page starts strictly after that row, so it costs the same however deep it is.
+ */
+public class KeysetCursor {
+
+    // Only non-null columns can be used as keyset sort keys
+    private static final Map<String, Function<String, Comparable<?>>> SORT_FIELDS = Map.of(
+            "id", Long::valueOf,
+            "username", value -> value,
+            "subscriptionId", Long::valueOf,
+            "startDate", LocalDate::parse,
+            "nextBillingDate", LocalDate::parse,
+            "monthlyPrice", BigDecimal::new
+    );
+
+    private final String sortBy;
+    private final boolean ascending;
+    private final Comparable<?> sortValue;
+    private final Long lastId;
+
+    public KeysetCursor(String sortBy, boolean ascending, Comparable<?> sortValue, Long lastId) {
+        this.sortBy = sortBy;
+        this.ascending = ascending;
+        this.sortValue = sortValue;
+        this.lastId = lastId;
+    }
+
+    public static boolean isSortable(String sortBy) {
+        return SORT_FIELDS.containsKey(sortBy);
+    }
+
+    public static KeysetCursor decode(String token, String sortBy, boolean ascending) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // sortBy|direction|id|value - the value goes last because it may itself contain '|'
+            String[] parts = decoded.split("\\|", 4);
+            if (parts.length != 4 || !parts[0].equals(sortBy) || !parts[1].equals(ascending ? "asc" : "desc")) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            return new KeysetCursor(sortBy, ascending, SORT_FIELDS.get(sortBy).apply(parts[3]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy + "|" + (ascending ? "asc" : "desc") + "|" + lastId + "|" + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public Comparable<?> getSortValue() {
+        return sortValue;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,39 @@
+-- Baseline schema. IF NOT EXISTS keeps this safe on databases that were created by
+-- hibernate ddl-auto before migrations were introduced.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE IF NOT EXISTS user_subscriptions (
+    id                BIGSERIAL PRIMARY KEY,
+    username          VARCHAR(255)   NOT NULL,
+    subscription_id   BIGINT         NOT NULL,
+    start_date        DATE           NOT NULL,
+    next_billing_date DATE           NOT NULL,
+    monthly_price     NUMERIC(10, 2) NOT NULL,
+    currency          VARCHAR(255)   NOT NULL,
+    billing_period    VARCHAR(255)   NOT NULL,
+    is_active         BOOLEAN,
+    notes             VARCHAR(255),
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id              BIGSERIAL PRIMARY KEY,
+    type            VARCHAR(50)  NOT NULL,
+    payload         TEXT         NOT NULL,
+    status          VARCHAR(20)  NOT NULL,
+    attempts        INTEGER      NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP(6),
+    sent_at         TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_cost_aggregates (
+    username                  VARCHAR(255)   PRIMARY KEY,
+    total_monthly_cost        NUMERIC(14, 2) NOT NULL,
+    active_subscription_count INTEGER        NOT NULL,
+    cost_by_currency          JSONB          NOT NULL,
+    updated_at                TIMESTAMP(6)
+);
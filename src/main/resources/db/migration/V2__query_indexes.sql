@@ -0,0 +1,27 @@
+-- Indexes for the access paths of UserSubscriptionRepository and NotificationOutboxRepository.
+-- Built CONCURRENTLY so existing tables stay writable; Flyway runs this migration outside a
+-- transaction, and spring.flyway.postgresql.transactional-lock is off so its lock does not block the
+-- build. The query plans are checked by UserSubscriptionQueryPlanTest.
+
+-- findByUsernameAndIsActive, findByUsername, sumActiveCostByUsernameAndCurrency, findDistinctUsernamesAfter
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_subscriptions_username_active
+    ON user_subscriptions (username, is_active);
+
+-- findReminderCandidates, findByNextBillingDateBetweenAndIsActive, findByNextBillingDateAndIsActive
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_subscriptions_next_billing_active
+    ON user_subscriptions (next_billing_date) WHERE is_active;
+
+-- existsByUsernameAndSubscriptionIdAndIsActive, findActiveByUsernameAndSubscriptionId, findActivePairs
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_subscriptions_username_subscription_active
+    ON user_subscriptions (username, subscription_id) WHERE is_active;
+
+-- Admin search: substring/prefix matches on username and exact subscription ID matches
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_subscriptions_username_trgm
+    ON user_subscriptions USING gin (username gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_subscriptions_subscription_id
+    ON user_subscriptions (subscription_id);
+
+-- NotificationOutboxRepository#lockDueBatch
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_outbox_pending
+    ON notification_outbox (next_attempt_at, id) WHERE status = 'PENDING';
@@ -0,0 +1,11 @@
+-- Let Hibernate reserve IDs 50 at a time (@SequenceGenerator allocationSize = 50) instead of
+-- asking the database for each row, so inserts can be sent as JDBC batches. The increment must
+-- match allocationSize. Each sequence is moved past the existing rows, because Hibernate's pooled
+-- optimizer hands out the 50 IDs below the value it gets from nextval.
+-- Inserts that use the column default still get unique IDs; they only leave gaps.
+
+ALTER SEQUENCE user_subscriptions_id_seq INCREMENT BY 50;
+SELECT setval('user_subscriptions_id_seq', COALESCE((SELECT MAX(id) FROM user_subscriptions), 0) + 50);
+
+ALTER SEQUENCE notification_outbox_id_seq INCREMENT BY 50;
+SELECT setval('notification_outbox_id_seq', COALESCE((SELECT MAX(id) FROM notification_outbox), 0) + 50);
@@ -0,0 +1,20 @@
+-- Cluster coordination for scheduled jobs.
+
+-- ShedLock's table: one row per job name, held until lock_until
+CREATE TABLE IF NOT EXISTS shedlock (
+    name       VARCHAR(64)  NOT NULL PRIMARY KEY,
+    lock_until TIMESTAMP(3) NOT NULL,
+    locked_at  TIMESTAMP(3) NOT NULL,
+    locked_by  VARCHAR(255) NOT NULL
+);
+
+-- Sharded billing reminder runs: one row per shard and run date. A node owns a shard until
+-- locked_until; completed shards are not processed again for that date.
+CREATE TABLE IF NOT EXISTS reminder_shard_leases (
+    run_date     DATE         NOT NULL,
+    shard        INTEGER      NOT NULL,
+    owner        VARCHAR(255),
+    locked_until TIMESTAMP(6) NOT NULL DEFAULT '-infinity',
+    completed_at TIMESTAMP(6),
+    PRIMARY KEY (run_date, shard)
+);
@@ -0,0 +1,12 @@
+-- Billing reminders already sent: one row per subscription and billing date. The reminder query
+-- anti-joins on it, so a cycle is reminded once however many runs see it. Rows for past billing
+-- dates are pruned by the reminder run.
+CREATE TABLE IF NOT EXISTS reminder_ledger (
+    user_subscription_id BIGINT       NOT NULL REFERENCES user_subscriptions (id) ON DELETE CASCADE,
+    billing_date         DATE         NOT NULL,
+    sent_at              TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (user_subscription_id, billing_date)
+);
+
+-- Pruning by billing date
+CREATE INDEX IF NOT EXISTS idx_reminder_ledger_billing_date ON reminder_ledger (billing_date);
@@ -0,0 +1,4 @@
+-- NotificationOutboxRepository#deleteSentBefore: the retention purge finds old sent rows without
+-- scanning the pending ones. Built CONCURRENTLY, like V2, so the outbox stays writable.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_outbox_sent_at
+    ON notification_outbox (sent_at) WHERE status = 'SENT';
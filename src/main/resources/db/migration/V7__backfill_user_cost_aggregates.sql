@@ -0,0 +1,19 @@
+-- Computes user_cost_aggregates from the active rows of user_subscriptions. Users who already had
+-- subscriptions before the aggregates existed got a zero row on their first change, so existing rows
+-- are overwritten as well; aggregates of users without active subscriptions are reset to zero.
+INSERT INTO user_cost_aggregates (username, total_monthly_cost, active_subscription_count, cost_by_currency, updated_at)
+SELECT username, SUM(total), SUM(subscriptions), jsonb_object_agg(currency, total), now()
+FROM (SELECT username, currency, SUM(monthly_price) AS total, COUNT(*) AS subscriptions
+      FROM user_subscriptions
+      WHERE is_active = true
+      GROUP BY username, currency) per_currency
+GROUP BY username
+ON CONFLICT (username) DO UPDATE SET
+    total_monthly_cost        = EXCLUDED.total_monthly_cost,
+    active_subscription_count = EXCLUDED.active_subscription_count,
+    cost_by_currency          = EXCLUDED.cost_by_currency,
+    updated_at                = EXCLUDED.updated_at;
+
+UPDATE user_cost_aggregates a
+SET total_monthly_cost = 0, active_subscription_count = 0, cost_by_currency = '{}', updated_at = now()
+WHERE NOT EXISTS (SELECT 1 FROM user_subscriptions us WHERE us.username = a.username AND us.is_active = true);
@@ -0,0 +1,7 @@
+-- Shard lease times were written with localtimestamp, which depends on each session's time zone.
+-- Store them as points in time instead. Existing values are read in the migrating session's zone,
+-- assumed to be the one the application wrote them in; open leases are short-lived either way.
+ALTER TABLE reminder_shard_leases
+    ALTER COLUMN locked_until TYPE TIMESTAMPTZ(6),
+    ALTER COLUMN locked_until SET DEFAULT '-infinity',
+    ALTER COLUMN completed_at TYPE TIMESTAMPTZ(6);
@@ -0,0 +1,357 @@
+package com.example.usersubscriptionservice.repository;
+
+import com.example.usersubscriptionservice.dto.SearchMatch;
+import com.example.usersubscriptionservice.service.BillingCycleRolloverService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrations against a real Postgres, loads a realistic amount of data and checks that
+ * the SQL issued by each repository method is planned on the index meant for it. Dropping or
+ * changing one of those indexes fails this test instead of showing up as a slow query in production.
+ * <p>
+ * Each test calls the repository method itself. The data source is wrapped in a proxy that records
+ * every statement with its bind parameters, and the recorded statement is explained with the same
+ * parameters, so the test always checks the SQL Hibernate actually generates.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({UserSubscriptionQueryPlanTest.StatementCaptureConfig.class, BillingCycleRolloverService.class})
+class UserSubscriptionQueryPlanTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private BillingCycleRolloverService billingCycleRolloverService;
+
+    @Autowired
+    private CapturedStatements capturedStatements;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            // 50k rows spread over 5k users, 300 catalog entries and the coming year of billing dates
+            statement.execute("INSERT INTO user_subscriptions (username, subscription_id, start_date, next_billing_date, " +
+                    "monthly_price, currency, billing_period, is_active, created_at, updated_at) " +
+                    "SELECT 'user' || (g % 5000), (g % 300) + 1, current_date - 30, current_date + (g % 365), " +
+                    "9.99, CASE WHEN g % 10 = 0 THEN 'USD' ELSE 'AZN' END, 'MONTHLY', g % 7 <> 0, now(), now() " +
+                    "FROM generate_series(1, 50000) AS g");
+            statement.execute("INSERT INTO notification_outbox (type, payload, status, attempts, next_attempt_at, " +
+                    "created_at, sent_at) " +
+                    "SELECT 'SUBSCRIPTION_ADDED', '{}', " +
+                    "CASE WHEN g % 100 = 0 THEN 'PENDING' ELSE 'SENT' END, 1, now(), now(), " +
+                    "CASE WHEN g % 100 = 0 THEN NULL ELSE now() - (g % 30) * interval '1 day' END " +
+                    "FROM generate_series(1, 20000) AS g");
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @BeforeEach
+    void clearCapturedStatements() {
+        capturedStatements.clear();
+    }
+
+    @Test
+    void findByUsernameAndIsActive() throws SQLException {
+        userSubscriptionRepository.findByUsernameAndIsActive("user42", true);
+
+        assertUsesIndex(capturedStatements.last(), "idx_user_subscriptions_username_active");
+    }
+
+    @Test
+    void findByIdAndUsername() throws SQLException {
+        userSubscriptionRepository.findByIdAndUsername(1234L, "user1234");
+
+        // The primary key already pins the row; a separate (id, username) index would only add write cost
+        assertUsesIndex(capturedStatements.last(), "user_subscriptions_pkey");
+    }
+
+    @Test
+    void existsByUsernameAndSubscriptionIdAndIsActive() throws SQLException {
+        userSubscriptionRepository.existsByUsernameAndSubscriptionIdAndIsActive("user42", 43L, true);
+
+        assertUsesIndex(capturedStatements.last(),
+                "idx_user_subscriptions_username_subscription_active", "idx_user_subscriptions_username_active");
+    }
+
+    @Test
+    void findActivePairs() throws SQLException {
+        userSubscriptionRepository.findActivePairs(new String[]{"user42", "user43"}, new Long[]{43L, 44L});
+
+        assertUsesIndex(capturedStatements.last(),
+                "idx_user_subscriptions_username_subscription_active", "idx_user_subscriptions_username_active");
+    }
+
+    @Test
+    void findActiveByUsernameAndSubscriptionId() throws SQLException {
+        userSubscriptionRepository.findActiveByUsernameAndSubscriptionId("user42", 43L);
+
+        assertUsesIndex(capturedStatements.last(),
+                "idx_user_subscriptions_username_subscription_active", "idx_user_subscriptions_username_active");
+    }
+
+    @Test
+    void sumActiveCostByUsernameAndCurrency() throws SQLException {
+        userSubscriptionRepository.sumActiveCostByUsernameAndCurrency(List.of("user1", "user2", "user3"));
+
+        assertUsesIndex(capturedStatements.last(), "idx_user_subscriptions_username_active");
+    }
+
+    @Test
+    void findDistinctUsernamesAfter() throws SQLException {
+        // A page near the end of the username range, like the later chunks of a reconcile run
+        userSubscriptionRepository.findDistinctUsernamesAfter("user9990", PageRequest.of(0, 500));
+
+        assertUsesIndex(capturedStatements.last(), "idx_user_subscriptions_username_active");
+    }
+
+    @Test
+    void findReminderCandidates() throws SQLException {
+        LocalDate today = LocalDate.now();
+        userSubscriptionRepository.findReminderCandidates(today.plusDays(1), today.plusDays(3), "", 0L,
+                PageRequest.of(0, 500));
+
+        assertUsesIndex(capturedStatements.last(), "idx_user_subscriptions_next_billing_active");
+    }
+
+    @Test
+    void findReminderCandidatesInShard() throws SQLException {
+        LocalDate today = LocalDate.now();
+        userSubscriptionRepository.findReminderCandidatesInShard(today.plusDays(1), today.plusDays(3), "", 0L,
+                16, 3, PageRequest.of(0, 500));
+
+        assertUsesIndex(capturedStatements.last(), "idx_user_subscriptions_next_billing_active");
+    }
+
+    @Test
+    void rolloverChunk() throws SQLException {
+        // The seeded billing dates are all today or later, so this issues one statement and updates nothing
+        billingCycleRolloverService.rollover();
+
+        assertUsesIndex(capturedStatements.containing("update user_subscriptions"),
+                "idx_user_subscriptions_next_billing_active");
+    }
+
+    @Test
+    void findAllPage() throws SQLException {
+        userSubscriptionRepository.findAll(PageRequest.of(0, 20, Sort.by("id").descending()));
+
+        assertUsesIndex(capturedStatements.containing("order by"), "user_subscriptions_pkey");
+    }
+
+    @Test
+    void findPageAfter() throws SQLException {
+        userSubscriptionRepository.findPageAfter(null, SearchMatch.CONTAINS, "id", false, null, 21);
+
+        assertUsesIndex(capturedStatements.last(), "user_subscriptions_pkey");
+    }
+
+    @Test
+    void searchByUsernameSubstring() throws SQLException {
+        userSubscriptionRepository.search("user1234", SearchMatch.CONTAINS, PageRequest.of(0, 10));
+
+        assertUsesIndex(capturedStatements.containing("order by"), "idx_user_subscriptions_username_trgm");
+    }
+
+    @Test
+    void searchByNumericTermAlsoMatchesSubscriptionId() throws SQLException {
+        userSubscriptionRepository.search("123", SearchMatch.CONTAINS, PageRequest.of(0, 10));
+
+        String plan = explain(capturedStatements.containing("order by"));
+        assertTrue(plan.contains("idx_user_subscriptions_subscription_id"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void countMatching() throws SQLException {
+        userSubscriptionRepository.countMatching("user1234", SearchMatch.PREFIX);
+
+        assertUsesIndex(capturedStatements.last(), "idx_user_subscriptions_username_trgm");
+    }
+
+    @Test
+    void lockDueOutboxBatch() throws SQLException {
+        notificationOutboxRepository.lockDueBatch(LocalDateTime.now(), 100);
+
+        assertUsesIndex(capturedStatements.last(), "idx_notification_outbox_pending");
+    }
+
+    @Test
+    void deleteSentOutboxBefore() throws SQLException {
+        // Only the oldest day of sent rows is past the cutoff
+        notificationOutboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(28), 5000);
+
+        assertUsesIndex(capturedStatements.last(), "idx_notification_outbox_sent_at");
+    }
+
+    private static void assertUsesIndex(CapturedStatement statement, String... acceptableIndexes) throws SQLException {
+        String plan = explain(statement);
+
+        assertFalse(plan.contains("Seq Scan on user_subscriptions") || plan.contains("Seq Scan on notification_outbox"),
+                () -> "Expected an index scan for\n" + statement.sql() + "\nbut got:\n" + plan);
+        assertTrue(Arrays.stream(acceptableIndexes).anyMatch(plan::contains),
+                () -> "Expected one of " + Arrays.toString(acceptableIndexes) + " for\n" + statement.sql() +
+                        "\nbut got:\n" + plan);
+    }
+
+    // Explains the statement on a connection of its own, which sees the committed seed data
+    private static String explain(CapturedStatement statement) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (ParameterSetOperation parameter : statement.parameters()) {
+                try {
+                    parameter.getMethod().invoke(explain, parameter.getArgs());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new SQLException("Failed to bind " + parameter.getMethod().getName(), e);
+                }
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = explain.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    record CapturedStatement(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    // Every statement sent through the application's data source since the last clear()
+    static class CapturedStatements implements QueryExecutionListener {
+
+        private final List<CapturedStatement> statements = new ArrayList<>();
+
+        @Override
+        public synchronized void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                List<List<ParameterSetOperation>> parametersList = queryInfo.getParametersList();
+                List<ParameterSetOperation> parameters = parametersList.isEmpty()
+                        ? List.of()
+                        : new ArrayList<>(parametersList.get(0));
+                statements.add(new CapturedStatement(queryInfo.getQuery(), parameters));
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        synchronized void clear() {
+            statements.clear();
+        }
+
+        synchronized CapturedStatement last() {
+            assertFalse(statements.isEmpty(), "No statement was issued");
+            return statements.get(statements.size() - 1);
+        }
+
+        synchronized CapturedStatement containing(String fragment) {
+            return statements.stream()
+                    .filter(statement -> statement.sql().toLowerCase(Locale.ROOT).contains(fragment))
+                    .reduce((first, second) -> second)
+                    .orElseThrow(() -> new AssertionError("No statement containing '" + fragment + "' in " + statements));
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        CapturedStatements capturedStatements() {
+            return new CapturedStatements();
+        }
+
+        @Bean
+        static BeanPostProcessor statementCapturingDataSource(CapturedStatements capturedStatements) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource).listener(capturedStatements).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        // BillingCycleRolloverService's dependencies outside the JPA slice
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.usersubscriptionservice.service;
+
+import com.example.usersubscriptionservice.dto.BillingRolloverReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the set-based rollover UPDATE against a real Postgres. The date arithmetic happens in SQL
+ * ({@code make_interval}), so month ends, leap days and rows several periods behind are checked here
+ * rather than trusted to the query. Each test runs in a transaction that is rolled back afterwards.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({BillingCycleRolloverService.class, BillingCycleRolloverServiceTest.MetricsConfig.class})
+class BillingCycleRolloverServiceTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BillingCycleRolloverService billingCycleRolloverService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void monthEndIntoFebruaryLandsOnItsLastDay() {
+        long id = insert("2025-01-31", "MONTHLY", true);
+
+        billingCycleRolloverService.rollover(LocalDate.parse("2025-02-15"));
+
+        assertEquals(LocalDate.parse("2025-02-28"), nextBillingDate(id));
+    }
+
+    @Test
+    void monthEndSeveralPeriodsBehindKeepsTheDayOfMonth() {
+        // Counted from the stored date, not stepped month by month, so it does not drift to the 28th
+        long id = insert("2024-10-31", "MONTHLY", true);
+
+        billingCycleRolloverService.rollover(LocalDate.parse("2025-03-01"));
+
+        assertEquals(LocalDate.parse("2025-03-31"), nextBillingDate(id));
+    }
+
+    @Test
+    void earlierDayInTheSameMonthMovesToNextMonth() {
+        long id = insert("2025-02-10", "MONTHLY", true);
+
+        billingCycleRolloverService.rollover(LocalDate.parse("2025-02-15"));
+
+        assertEquals(LocalDate.parse("2025-03-10"), nextBillingDate(id));
+    }
+
+    @Test
+    void yearlyCycleLessThanAYearBehind() {
+        long id = insert("2024-06-15", "YEARLY", true);
+
+        billingCycleRolloverService.rollover(LocalDate.parse("2025-03-01"));
+
+        assertEquals(LocalDate.parse("2025-06-15"), nextBillingDate(id));
+    }
+
+    @Test
+    void yearlyCycleSeveralYearsBehindPassesTheSameDayThisYear() {
+        long id = insert("2021-05-20", "YEARLY", true);
+
+        billingCycleRolloverService.rollover(LocalDate.parse("2025-05-21"));
+
+        assertEquals(LocalDate.parse("2026-05-20"), nextBillingDate(id));
+    }
+
+    @Test
+    void yearlyCycleFromLeapDay() {
+        long id = insert("2024-02-29", "YEARLY", true);
+
+        billingCycleRolloverService.rollover(LocalDate.parse("2025-03-10"));
+
+        assertEquals(LocalDate.parse("2026-02-28"), nextBillingDate(id));
+    }
+
+    @Test
+    void dueTodayAndInactiveRowsAreLeftAlone() {
+        long dueToday = insert("2025-02-15", "MONTHLY", true);
+        long inactive = insert("2024-12-01", "MONTHLY", false);
+
+        BillingRolloverReport report = billingCycleRolloverService.rollover(LocalDate.parse("2025-02-15"));
+
+        assertEquals(0, report.getRows());
+        assertEquals(LocalDate.parse("2025-02-15"), nextBillingDate(dueToday));
+        assertEquals(LocalDate.parse("2024-12-01"), nextBillingDate(inactive));
+    }
+
+    @Test
+    void rerunOnTheSameDayChangesNothing() {
+        long id = insert("2024-11-30", "MONTHLY", true);
+        LocalDate today = LocalDate.parse("2025-02-15");
+
+        assertEquals(1, billingCycleRolloverService.rollover(today).getRows());
+        assertEquals(0, billingCycleRolloverService.rollover(today).getRows());
+        assertEquals(LocalDate.parse("2025-02-28"), nextBillingDate(id));
+    }
+
+    private long insert(String nextBillingDate, String billingPeriod, boolean active) {
+        return jdbcTemplate.queryForObject("INSERT INTO user_subscriptions (username, subscription_id, start_date, " +
+                        "next_billing_date, monthly_price, currency, billing_period, is_active, created_at, updated_at) " +
+                        "VALUES ('rollover-user', 1, CAST(? AS date) - 365, CAST(? AS date), 9.99, 'AZN', ?, ?, now(), now()) " +
+                        "RETURNING id",
+                Long.class, nextBillingDate, nextBillingDate, billingPeriod, active);
+    }
+
+    private LocalDate nextBillingDate(long id) {
+        return jdbcTemplate.queryForObject("SELECT next_billing_date FROM user_subscriptions WHERE id = ?",
+                LocalDate.class, id);
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
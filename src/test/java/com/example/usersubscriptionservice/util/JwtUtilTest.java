@@ -0,0 +1,81 @@
+package com.example.usersubscriptionservice.util;
+
+import com.example.usersubscriptionservice.security.JwtPrincipal;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtil.init();
+    }
+
+    @Test
+    void verifyReturnsClaimsAndCachesTheResult() {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        String token = token(SECRET, expiresAt);
+
+        JwtPrincipal principal = jwtUtil.verify(token);
+
+        assertEquals("john", principal.getUsername());
+        assertEquals("ADMIN", principal.getRole());
+        assertEquals(expiresAt.getEpochSecond(), principal.getExpiresAt().getEpochSecond());
+        assertSame(principal, jwtUtil.verify(token));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = token(SECRET, Instant.now().minusSeconds(60));
+
+        assertThrows(RuntimeException.class, () -> jwtUtil.verify(token));
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String token = token("anotherSecretKey12345678901234567890123456", Instant.now().plusSeconds(600));
+
+        assertThrows(RuntimeException.class, () -> jwtUtil.verify(token));
+    }
+
+    @Test
+    void rejectsTokenWithoutExpiration() {
+        String token = Jwts.builder()
+                .subject("john")
+                .claim("role", "ADMIN")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+
+        assertThrows(RuntimeException.class, () -> jwtUtil.verify(token));
+    }
+
+    private static String token(String secret, Instant expiresAt) {
+        return Jwts.builder()
+                .subject("john")
+                .claim("role", "ADMIN")
+                .expiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .compact();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.usersubscriptionservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsEverySortableType() {
+        assertRoundTrip("id", 42L);
+        assertRoundTrip("username", "john|doe");
+        assertRoundTrip("subscriptionId", 7L);
+        assertRoundTrip("startDate", LocalDate.of(2024, 1, 31));
+        assertRoundTrip("nextBillingDate", LocalDate.of(2024, 2, 29));
+        assertRoundTrip("monthlyPrice", new BigDecimal("12.50"));
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrder() {
+        String token = new KeysetCursor("username", true, "john", 1L).encode();
+
+        assertThrows(RuntimeException.class, () -> KeysetCursor.decode(token, "username", false));
+        assertThrows(RuntimeException.class, () -> KeysetCursor.decode(token, "startDate", true));
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertThrows(RuntimeException.class, () -> KeysetCursor.decode("not a cursor", "id", true));
+    }
+
+    @Test
+    void onlyNonNullColumnsAreSortable() {
+        assertTrue(KeysetCursor.isSortable("nextBillingDate"));
+        assertFalse(KeysetCursor.isSortable("createdAt"));
+        assertFalse(KeysetCursor.isSortable("notes"));
+    }
+
+    private void assertRoundTrip(String sortBy, Comparable<?> value) {
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor(sortBy, false, value, 99L).encode(), sortBy, false);
+
+        assertEquals(value, decoded.getSortValue());
+        assertEquals(99L, decoded.getLastId());
+        assertFalse(decoded.isAscending());
+    }
+}